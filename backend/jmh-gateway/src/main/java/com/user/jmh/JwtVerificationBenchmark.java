@@ -0,0 +1,70 @@
+package com.user.jmh;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.auth0.jwt.interfaces.JWTVerifier;
+import com.user.security.enums.Role;
+import com.user.security.service.JwtService;
+import com.user.security.user.AuthUser;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/*
+ * Gateway authentication of a repeated token: building a verifier per request
+ * (the old JwtService), a verifier built once, and JwtService with its
+ * verified-token cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "benchmark-signing-secret";
+
+    private Algorithm algorithm;
+    private JWTVerifier sharedVerifier;
+    private JwtService cachingService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        algorithm = Algorithm.HMAC512(SECRET);
+        sharedVerifier = JWT.require(algorithm).build();
+        cachingService = new JwtService(SECRET, 10_000, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        token = cachingService.createJwtToken(new AuthUser("benchmark-user", "", List.of(Role.MEMBER)));
+    }
+
+    @Benchmark
+    public DecodedJWT verifierPerRequest() {
+        return JWT.require(algorithm).build().verify(token);
+    }
+
+    @Benchmark
+    public DecodedJWT sharedVerifier() {
+        return sharedVerifier.verify(token);
+    }
+
+    @Benchmark
+    public AuthUser cachedService() {
+        return cachingService.resolveJwtToken(token);
+    }
+}
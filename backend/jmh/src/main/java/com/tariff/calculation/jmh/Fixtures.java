@@ -0,0 +1,28 @@
+package com.tariff.calculation.jmh;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/*
+ * Recorded upstream responses, standing in for the Moach and WITS APIs.
+ */
+final class Fixtures {
+
+    static final String MOACH_TARIFF_DATA = "/fixtures/moach-tariff-data.json";
+    static final String WITS_TARIFF_REPORTED = "/fixtures/wits-tariff-reported.json";
+
+    private Fixtures() {
+    }
+
+    static byte[] load(String path) {
+        try (InputStream in = Fixtures.class.getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing fixture " + path);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
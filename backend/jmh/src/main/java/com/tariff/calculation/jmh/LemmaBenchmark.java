@@ -0,0 +1,47 @@
+package com.tariff.calculation.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tariff.calculation.tariffCalc.utility.ItemNameNormalizer;
+import com.tariff.calculation.tariffCalc.utility.LemmaUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/*
+ * Item name normalisation: the raw lemmatizer against the memoised normaliser
+ * the services go through.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LemmaBenchmark {
+
+    @Param({ "cars", "tennis shoes", "boxes of wooden matches" })
+    public String item;
+
+    private final ItemNameNormalizer normalizer = new ItemNameNormalizer(10_000, new SimpleMeterRegistry());
+
+    @Benchmark
+    public String toSingular() {
+        return LemmaUtils.toSingular(item);
+    }
+
+    @Benchmark
+    public String canonical() {
+        return normalizer.canonical(item);
+    }
+}
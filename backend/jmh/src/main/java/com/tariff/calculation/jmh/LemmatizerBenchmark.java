@@ -0,0 +1,74 @@
+package com.tariff.calculation.jmh;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tariff.calculation.tariffCalc.utility.CompactLemmatizer;
+import com.tariff.calculation.tariffCalc.utility.LemmaUtils;
+import com.tariff.calculation.tariffCalc.utility.Lemmatizer;
+import com.tariff.calculation.tariffCalc.utility.OpenNlpLemmatizer;
+
+/*
+ * The two dictionaries behind LemmaUtils: the compiled table read in place
+ * against the OpenNLP text dictionary parsed into a map. Load time is the
+ * load benchmark in single shot mode, the heap difference shows with -prof gc.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LemmatizerBenchmark {
+
+    @Param({ "compact", "opennlp" })
+    public String dictionary;
+
+    @Param({ "cars", "wolves", "furniture" })
+    public String word;
+
+    private Lemmatizer lemmatizer;
+
+    @Setup
+    public void load() throws Exception {
+        lemmatizer = open(dictionary);
+    }
+
+    @Benchmark
+    public String singular() {
+        return lemmatizer.singular(word);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Lemmatizer loadDictionary() throws Exception {
+        return open(dictionary);
+    }
+
+    private static Lemmatizer open(String dictionary) throws Exception {
+        if (dictionary.equals("compact")) {
+            URL table = LemmaUtils.class.getResource(LemmaUtils.COMPACT_DICTIONARY);
+            if (table == null) {
+                throw new IllegalStateException("No compiled dictionary, build tariffCalc with the model present");
+            }
+            return CompactLemmatizer.map(table);
+        }
+        try (InputStream text = LemmaUtils.class.getResourceAsStream(LemmaUtils.OPENNLP_DICTIONARY)) {
+            return new OpenNlpLemmatizer(text);
+        }
+    }
+}
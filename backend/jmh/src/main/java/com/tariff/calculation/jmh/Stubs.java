@@ -0,0 +1,34 @@
+package com.tariff.calculation.jmh;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/*
+ * In-memory stand-ins for the Spring Data repositories, so the service code can
+ * be measured without a database. Only the methods named in the answers map are
+ * implemented, anything else the service calls fails loudly.
+ */
+final class Stubs {
+
+    private Stubs() {
+    }
+
+    static <T> T repository(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        Object stub = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> {
+                    Function<Object[], Object> answer = answers.get(method.getName());
+                    if (answer != null) {
+                        return answer.apply(args);
+                    }
+                    return switch (method.getName()) {
+                        case "toString" -> type.getSimpleName() + " stub";
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        default -> throw new UnsupportedOperationException(
+                                type.getSimpleName() + "." + method.getName() + " is not stubbed");
+                    };
+                });
+        return type.cast(stub);
+    }
+}
@@ -0,0 +1,126 @@
+package com.tariff.calculation.jmh;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.client.RestClient;
+
+import com.tariff.calculation.tariffCalc.config.ApiCredentials;
+import com.tariff.calculation.tariffCalc.config.FreshnessProperties;
+import com.tariff.calculation.tariffCalc.config.UpstreamProperties;
+import com.tariff.calculation.tariffCalc.country.Country;
+import com.tariff.calculation.tariffCalc.country.CountryDirectory;
+import com.tariff.calculation.tariffCalc.country.CountryRepo;
+import com.tariff.calculation.tariffCalc.dto.TariffCalculationQueryDTO;
+import com.tariff.calculation.tariffCalc.dto.TariffResponseDTO;
+import com.tariff.calculation.tariffCalc.item.Item;
+import com.tariff.calculation.tariffCalc.item.ItemRepo;
+import com.tariff.calculation.tariffCalc.service.TariffCalculationImpl;
+import com.tariff.calculation.tariffCalc.tariff.TariffRateIndex;
+import com.tariff.calculation.tariffCalc.tariff.TariffRateView;
+import com.tariff.calculation.tariffCalc.tariff.TariffRepo;
+import com.tariff.calculation.tariffCalc.upstream.NegativeCache;
+import com.tariff.calculation.tariffCalc.upstream.NegativeResultRepo;
+import com.tariff.calculation.tariffCalc.upstream.UpstreamClients;
+import com.tariff.calculation.tariffCalc.utility.ItemNameNormalizer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/*
+ * The in-memory part of getCurrentTariffDetails: country and item resolution,
+ * the rate index and building the response. Repositories are stubbed, so this
+ * measures what a warm request costs once nothing has to go to the database or
+ * the upstream APIs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TariffDetailsBenchmark {
+
+    private static final int USA = 840;
+    private static final int CHINA = 156;
+    private static final int SPORTS_FOOTWEAR = 640411;
+
+    private TariffCalculationImpl service;
+    private TariffCalculationQueryDTO specificQuery;
+    private TariffCalculationQueryDTO fallbackQuery;
+
+    @Setup
+    public void setup() {
+        List<Country> countries = List.of(
+                new Country(0, "W", "world", false, new ArrayList<>(), new ArrayList<>()),
+                new Country(-1, "D", "developing", false, new ArrayList<>(), new ArrayList<>()),
+                new Country(USA, "US", "United States", false, new ArrayList<>(), new ArrayList<>()),
+                new Country(CHINA, "CN", "China", true, new ArrayList<>(), new ArrayList<>()),
+                new Country(36, "AU", "Australia", false, new ArrayList<>(), new ArrayList<>()));
+        Item item = new Item(SPORTS_FOOTWEAR, "tennis shoe" + USA, new ArrayList<>());
+
+        CountryRepo countryRepo = Stubs.repository(CountryRepo.class, Map.of("findAll", (args) -> countries));
+        ItemRepo itemRepo = Stubs.repository(ItemRepo.class,
+                Map.of("findByItemName", (args) -> Optional.of(item).filter((i) -> i.getItemName().equals(args[0]))));
+        TariffRepo tariffRepo = Stubs.repository(TariffRepo.class, Map.of("findLatestApplicable", (args) -> {
+            int partner = (int) args[2];
+            return Optional.of(partner == CHINA
+                    ? new TariffRateView(1, CHINA, 7.5, "Section 301", LocalDate.of(2024, 1, 1))
+                    : new TariffRateView(2, 0, 10.0, "MFN Tariff", LocalDate.of(2024, 1, 1)));
+        }));
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // The fixture rows are old, keep background refreshes out of the measurement
+        FreshnessProperties freshness = new FreshnessProperties();
+        freshness.setEnabled(false);
+        service = new TariffCalculationImpl(
+                new CountryDirectory(countryRepo),
+                itemRepo,
+                tariffRepo,
+                new TariffRateIndex(1 << 20),
+                (tariffs) -> tariffs,
+                new ItemNameNormalizer(10_000, meterRegistry),
+                new ApiCredentials(),
+                freshness,
+                new NegativeCache(Stubs.repository(NegativeResultRepo.class, Map.of("findAll", (args) -> List.of())),
+                        meterRegistry, true, Duration.ofDays(7), 100_000),
+                new UpstreamClients(RestClient.builder(), new UpstreamProperties(), meterRegistry),
+                meterRegistry,
+                100,
+                8,
+                8,
+                4,
+                "http://localhost");
+
+        specificQuery = new TariffCalculationQueryDTO("United States", "China", "Tennis Shoes", 120.0);
+        fallbackQuery = new TariffCalculationQueryDTO("United States", "Australia", "Tennis Shoes", 120.0);
+
+        // First calls go through the stubbed repository and fill the rate index
+        service.getCurrentTariffDetails(specificQuery);
+        service.getCurrentTariffDetails(fallbackQuery);
+    }
+
+    @Benchmark
+    public TariffResponseDTO specificRate() {
+        return service.getCurrentTariffDetails(specificQuery);
+    }
+
+    @Benchmark
+    public TariffResponseDTO worldRateThroughAlias() {
+        return service.getCurrentTariffDetails(fallbackQuery);
+    }
+}
@@ -0,0 +1,80 @@
+package com.tariff.calculation.jmh;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tariff.calculation.tariffCalc.dto.currentTariffApiDto.MoachDTO;
+import com.tariff.calculation.tariffCalc.dto.currentTariffApiDto.TableData;
+import com.tariff.calculation.tariffCalc.dto.historicalTariffApiDto.WitsDTO;
+import com.tariff.calculation.tariffCalc.utility.SdmxTariffParser;
+import com.tariff.calculation.tariffCalc.utility.SdmxTariffParser.Observations;
+import com.tariff.calculation.tariffCalc.utility.TariffRateParser;
+
+/*
+ * Deserialising the recorded Moach and WITS responses into the DTOs, streaming
+ * the WITS response through SdmxTariffParser as the overview path does, and
+ * parsing the free-text rates out of a Moach response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UpstreamParsingBenchmark {
+
+    // Same defaults as the ObjectMapper Spring Boot gives RestClient
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private byte[] moachJson;
+    private byte[] witsJson;
+    private List<TableData> moachRows;
+
+    @Setup
+    public void setup() throws IOException {
+        moachJson = Fixtures.load(Fixtures.MOACH_TARIFF_DATA);
+        witsJson = Fixtures.load(Fixtures.WITS_TARIFF_REPORTED);
+        moachRows = objectMapper.readValue(moachJson, MoachDTO.class).tariffData().get(0).getCountryInformation();
+    }
+
+    @Benchmark
+    public MoachDTO moachDeserialize() throws IOException {
+        return objectMapper.readValue(moachJson, MoachDTO.class);
+    }
+
+    @Benchmark
+    public WitsDTO witsDeserialize() throws IOException {
+        return objectMapper.readValue(witsJson, WitsDTO.class);
+    }
+
+    @Benchmark
+    public Observations witsStreaming() throws IOException {
+        return SdmxTariffParser.parse(new ByteArrayInputStream(witsJson));
+    }
+
+    @Benchmark
+    public void moachRateParsing(Blackhole blackhole) {
+        for (TableData row : moachRows) {
+            blackhole.consume(TariffRateParser.regionRate(row.getTariffRate()));
+            blackhole.consume(TariffRateParser.applicableCountryNames(row.getCountry()));
+        }
+        blackhole.consume(TariffRateParser.specialRateCountryCodes("Free (A+,AU,BH,CL,CO,D,E,IL,JO,KR,MA,OM,P,PA,PE,S,SG)"));
+        blackhole.consume(TariffRateParser.generalRate("Free"));
+    }
+}
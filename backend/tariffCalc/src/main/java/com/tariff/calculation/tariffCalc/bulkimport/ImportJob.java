@@ -0,0 +1,78 @@
+package com.tariff.calculation.tariffCalc.bulkimport;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.tariff.calculation.tariffCalc.dto.ImportJobDTO;
+
+/*
+ * Live progress of one import, updated by the import thread and read by the
+ * status endpoint.
+ */
+public class ImportJob {
+
+    public enum State {
+        RUNNING, DONE, FAILED
+    }
+
+    private final String id;
+    private final String fileName;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final AtomicLong linesRead = new AtomicLong();
+    private final AtomicLong rowsParsed = new AtomicLong();
+    private final AtomicLong rowsQuarantined = new AtomicLong();
+    private final AtomicLong itemsCreated = new AtomicLong();
+    private final AtomicLong rowsLoaded = new AtomicLong();
+    private volatile State state = State.RUNNING;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+
+    public ImportJob(String id, String fileName) {
+        this.id = id;
+        this.fileName = fileName;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public AtomicLong linesRead() {
+        return linesRead;
+    }
+
+    public AtomicLong rowsParsed() {
+        return rowsParsed;
+    }
+
+    public AtomicLong rowsQuarantined() {
+        return rowsQuarantined;
+    }
+
+    public AtomicLong itemsCreated() {
+        return itemsCreated;
+    }
+
+    public AtomicLong rowsLoaded() {
+        return rowsLoaded;
+    }
+
+    public void finish() {
+        finishedAt = LocalDateTime.now();
+        state = State.DONE;
+    }
+
+    public void fail(String message) {
+        error = message;
+        finishedAt = LocalDateTime.now();
+        state = State.FAILED;
+    }
+
+    public ImportJobDTO toDTO() {
+        return new ImportJobDTO(id, fileName, state.name(), linesRead.get(), rowsParsed.get(),
+                rowsQuarantined.get(), itemsCreated.get(), rowsLoaded.get(), startedAt, finishedAt, error);
+    }
+}
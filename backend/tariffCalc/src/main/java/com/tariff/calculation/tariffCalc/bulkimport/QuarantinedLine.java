@@ -0,0 +1,43 @@
+package com.tariff.calculation.tariffCalc.bulkimport;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * A line of an imported tariff schedule that could not be loaded, kept with the
+ * reason so it can be fixed and re-imported.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_quarantined_line_job", columnList = "jobId, lineNumber"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuarantinedLine {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String jobId;
+
+    private long lineNumber;
+
+    @Column(length = 1000)
+    private String content;
+
+    private String reason;
+
+    public QuarantinedLine(String jobId, long lineNumber, String content, String reason) {
+        this.jobId = jobId;
+        this.lineNumber = lineNumber;
+        this.content = content.length() > 1000 ? content.substring(0, 1000) : content;
+        this.reason = reason;
+    }
+}
@@ -0,0 +1,11 @@
+package com.tariff.calculation.tariffCalc.bulkimport;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface QuarantinedLineRepo extends JpaRepository<QuarantinedLine, Long> {
+    // Getters
+    public List<QuarantinedLine> findByJobIdOrderByLineNumber(String jobId, Pageable pageable);
+}
@@ -0,0 +1,30 @@
+package com.tariff.calculation.tariffCalc.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.tariff.calculation.tariffCalc.utility.LemmaUtils;
+
+/*
+ * Upstream API secrets, resolved once at startup from the environment or .env
+ * instead of on every outgoing request.
+ */
+@Component
+public class ApiCredentials {
+
+    private final Logger log = LoggerFactory.getLogger(ApiCredentials.class);
+
+    private final String moachApiKey;
+
+    public ApiCredentials() {
+        this.moachApiKey = LemmaUtils.getEnvOrDotenv("MOACH_API_KEY");
+        if (moachApiKey == null) {
+            log.warn("MOACH_API_KEY is not set, Moach API calls will be rejected");
+        }
+    }
+
+    public String moachApiKey() {
+        return moachApiKey;
+    }
+}
@@ -1,68 +1,192 @@
 package com.tariff.calculation.tariffCalc.config;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.tariff.calculation.tariffCalc.country.Country;
+import com.tariff.calculation.tariffCalc.country.CountryDirectory;
 import com.tariff.calculation.tariffCalc.country.CountryRepo;
+import com.tariff.calculation.tariffCalc.seed.SeedRecord;
+import com.tariff.calculation.tariffCalc.seed.SeedRecordRepo;
+import com.tariff.calculation.tariffCalc.utility.CsvLine;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/*
+ * Seeds the reference data under data/ at startup: countries and the "world"
+ * and "developing" country groups. Items are not seeded, they are created from
+ * the upstream API (and by imports) under the names the lookups expect.
+ *
+ * Each file is a seed set. Its SHA-256 is stored in seed_record, and a set whose
+ * file has not changed since it was last applied is skipped without reading
+ * the table, so a normal restart costs one query per set. A changed or new
+ * file is applied as one batched upsert, which is idempotent, so instances
+ * starting at the same time can both apply it safely. Other databases (H2 in
+ * the tests) save the rows through the repositories instead.
+ *
+ * The time per set is recorded in tariff.startup.seed (tags dataset, result).
+ */
 @Component
 public class DataLoader implements CommandLineRunner {
 
     private static final Logger log = LoggerFactory.getLogger(DataLoader.class);
 
+    private static final String UPSERT_COUNTRY = "INSERT INTO country"
+            + " (countryNumber, countryCode, countryName, isDeveloping) VALUES (?, ?, ?, ?)"
+            + " ON CONFLICT (countryNumber) DO UPDATE SET countryCode = EXCLUDED.countryCode,"
+            + " countryName = EXCLUDED.countryName, isDeveloping = EXCLUDED.isDeveloping";
+    private static final String UPSERT_RECORD = "INSERT INTO seed_record"
+            + " (name, checksum, rowCount, appliedAt) VALUES (?, ?, ?, ?)"
+            + " ON CONFLICT (name) DO UPDATE SET checksum = EXCLUDED.checksum,"
+            + " rowCount = EXCLUDED.rowCount, appliedAt = EXCLUDED.appliedAt";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SeedRecordRepo seedRecordRepo;
+
+    @Autowired
+    private CountryRepo countryRepo;
+
+    @Autowired
+    private CountryDirectory countryDirectory;
+
     @Autowired
-    private CountryRepo countryRepository;
+    private MeterRegistry meterRegistry;
 
     @Override
     @Transactional
     public void run(String... args) throws Exception {
-        log.info("DataLoader running");
-        if (countryRepository.count() == 0) {
-            log.info("Loading countries from CSV");
-            ClassPathResource resource = new ClassPathResource("data/countries.csv");
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream()))) {
-                String line;
-                boolean firstLine = true;
-                int count = 0;
-                while ((line = reader.readLine()) != null) {
-                    if (firstLine) {
-                        firstLine = false;
-                        continue;
-                    }
-                    String[] fields = line.split(",");
-                    if (fields.length < 4) {
-                        log.warn("Invalid line: " + line);
+        long start = System.nanoTime();
+        boolean postgres = isPostgres();
+        List<SeedSet> seedSets = List.of(
+                new SeedSet("countries", "data/countries.csv", 4, UPSERT_COUNTRY, DataLoader::countryRow,
+                        (rows) -> countryRepo.saveAll(rows.stream().map(DataLoader::country).toList())),
+                new SeedSet("country-groups", "data/country-groups.csv", 4, UPSERT_COUNTRY, DataLoader::countryRow,
+                        (rows) -> countryRepo.saveAll(rows.stream().map(DataLoader::country).toList())));
+        for (SeedSet seedSet : seedSets) {
+            seed(seedSet, postgres);
+        }
+        countryDirectory.reload();
+        log.info("Reference data ready in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void seed(SeedSet seedSet, boolean postgres) throws IOException {
+        long start = System.nanoTime();
+        String result;
+        ClassPathResource resource = new ClassPathResource(seedSet.resource());
+        if (!resource.exists()) {
+            result = "missing";
+            log.warn("Seed file {} not found", seedSet.resource());
+        } else {
+            byte[] content = resource.getContentAsByteArray();
+            String checksum = sha256(content);
+            Optional<SeedRecord> applied = seedRecordRepo.findById(seedSet.name());
+            if (applied.isPresent() && checksum.equals(applied.get().getChecksum())) {
+                result = "skipped";
+                log.info("Seed set {} unchanged, skipping", seedSet.name());
+            } else {
+                List<Object[]> rows = parse(seedSet, content);
+                if (postgres) {
+                    jdbcTemplate.batchUpdate(seedSet.upsert(), rows);
+                    jdbcTemplate.update(UPSERT_RECORD, seedSet.name(), checksum, rows.size(), LocalDateTime.now());
+                } else {
+                    seedSet.save().accept(rows);
+                    seedRecordRepo.save(new SeedRecord(seedSet.name(), checksum, rows.size(), LocalDateTime.now()));
+                }
+                result = "applied";
+                log.info("Seed set {} applied with {} rows", seedSet.name(), rows.size());
+            }
+        }
+        Timer.builder("tariff.startup.seed")
+                .tag("dataset", seedSet.name())
+                .tag("result", result)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    // Header line skipped, invalid lines logged and left out
+    private static List<Object[]> parse(SeedSet seedSet, byte[] content) throws IOException {
+        List<Object[]> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8))) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    List<String> fields = CsvLine.split(line);
+                    if (fields.size() < seedSet.columns()) {
+                        log.warn("Invalid line in {}: {}", seedSet.resource(), line);
                         continue;
                     }
-                    try {
-                        int countryNumber = Integer.parseInt(fields[0].trim());
-                        String countryCode = fields[1].trim();
-                        String countryName = fields[2].trim();
-                        boolean isDeveloping = Boolean.parseBoolean(fields[3].trim());
-                        Country country = new Country();
-                        country.setCountryNumber(countryNumber);
-                        country.setCountryCode(countryCode);
-                        country.setCountryName(countryName);
-                        country.setIsDeveloping(isDeveloping);
-                        countryRepository.save(country);
-                        count++;
-                    } catch (Exception e) {
-                        log.error("Error parsing line: " + line, e);
-                    }
+                    rows.add(seedSet.row().apply(fields));
+                } catch (RuntimeException e) {
+                    log.error("Error parsing line in {}: {}", seedSet.resource(), line, e);
                 }
-                log.info("Loaded " + count + " countries");
             }
-        } else {
-            log.info("Countries already loaded, count: " + countryRepository.count());
         }
+        return rows;
+    }
+
+    private static Object[] countryRow(List<String> fields) {
+        return new Object[] {
+                Integer.parseInt(fields.get(0).trim()),
+                fields.get(1).trim(),
+                fields.get(2).trim(),
+                Boolean.parseBoolean(fields.get(3).trim())
+        };
+    }
+
+    private static Country country(Object[] row) {
+        return new Country((Integer) row[0], (String) row[1], (String) row[2], (Boolean) row[3], null, null);
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private boolean isPostgres() {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) (connection) ->
+                "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName()));
+    }
+
+    /*
+     * One reference data file, how its lines become upsert parameters, and how
+     * those rows are saved through JPA on databases other than PostgreSQL
+     */
+    private record SeedSet(String name, String resource, int columns, String upsert,
+            Function<List<String>, Object[]> row, Consumer<List<Object[]>> save) {
     }
-}
\ No newline at end of file
+}
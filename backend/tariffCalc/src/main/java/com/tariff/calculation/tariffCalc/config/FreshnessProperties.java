@@ -0,0 +1,25 @@
+package com.tariff.calculation.tariffCalc.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/*
+ * How long a stored current tariff is trusted, measured from Tariff.localDate.
+ * Past the soft TTL it is still served but refreshed from Moach in the
+ * background; past the hard TTL the request waits for the refresh.
+ */
+@Data
+@ConfigurationProperties(prefix = "tariff.freshness")
+public class FreshnessProperties {
+
+    private boolean enabled = true;
+
+    private int softTtlDays = 7;
+
+    private int hardTtlDays = 90;
+
+    // Background refreshes running at once, and waiting beyond that before new ones are dropped
+    private int refreshConcurrency = 2;
+    private int refreshQueueSize = 100;
+}
@@ -0,0 +1,43 @@
+package com.tariff.calculation.tariffCalc.config;
+
+import java.io.IOException;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.tariff.calculation.tariffCalc.tariff.TariffRateIndex;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/*
+ * Stamps every /tariff response with the rate index version as it was when the
+ * request started. The gateway drops its cached tariff answers when it sees a
+ * newer version, which covers changes it cannot see itself: background
+ * refreshes, finished imports and deletes.
+ */
+@Component
+public class TariffDataVersionFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Tariff-Data-Version";
+
+    private final TariffRateIndex tariffRateIndex;
+
+    public TariffDataVersionFilter(TariffRateIndex tariffRateIndex) {
+        this.tariffRateIndex = tariffRateIndex;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/tariff/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        response.setHeader(HEADER, Long.toString(tariffRateIndex.version()));
+        filterChain.doFilter(request, response);
+    }
+}
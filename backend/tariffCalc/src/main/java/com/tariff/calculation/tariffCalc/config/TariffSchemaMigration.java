@@ -0,0 +1,79 @@
+package com.tariff.calculation.tariffCalc.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ * Makes sure the tariff table carries uk_tariff_natural_key (reporter, partner,
+ * item, date), which the ingestion upserts and the placeholder save in
+ * resolveTariff depend on.
+ *
+ * ddl-auto adds the constraint to a new table, but on a table that already
+ * holds duplicate natural keys Hibernate only logs the failure and starts
+ * without it. On PostgreSQL this runs before the reference data is seeded: if
+ * the constraint is missing, the duplicates are deleted (the row with the
+ * highest id, i.e. the newest, is kept) and the constraint is added, in one
+ * transaction with the table locked, so concurrent writers and a second
+ * instance starting at the same time wait instead of racing it. Other databases
+ * (H2 in the tests) get the constraint from ddl-auto.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TariffSchemaMigration implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(TariffSchemaMigration.class);
+
+    private static final String CONSTRAINT_EXISTS = "SELECT EXISTS (SELECT 1 FROM pg_constraint"
+            + " WHERE conname = 'uk_tariff_natural_key')";
+    private static final String LOCK_TABLE = "LOCK TABLE Tariff IN SHARE ROW EXCLUSIVE MODE";
+    private static final String DELETE_DUPLICATES = "DELETE FROM Tariff t USING Tariff newer"
+            + " WHERE t.reporting_country_id = newer.reporting_country_id"
+            + " AND t.partner_country_id = newer.partner_country_id"
+            + " AND t.itemcode = newer.itemcode"
+            + " AND t.localDate = newer.localDate"
+            + " AND t.id < newer.id";
+    private static final String ADD_CONSTRAINT = "ALTER TABLE Tariff ADD CONSTRAINT uk_tariff_natural_key"
+            + " UNIQUE (reporting_country_id, partner_country_id, itemcode, localDate)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public TariffSchemaMigration(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!isPostgres() || constraintExists()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult((status) -> {
+            jdbcTemplate.execute(LOCK_TABLE);
+            // Another instance may have finished the migration while this one waited for the lock
+            if (constraintExists()) {
+                return;
+            }
+            int removed = jdbcTemplate.update(DELETE_DUPLICATES);
+            jdbcTemplate.execute(ADD_CONSTRAINT);
+            log.info("Added uk_tariff_natural_key to Tariff after removing {} duplicate rows", removed);
+        });
+    }
+
+    private boolean constraintExists() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(CONSTRAINT_EXISTS, Boolean.class));
+    }
+
+    private boolean isPostgres() {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) (connection) ->
+                "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName()));
+    }
+}
@@ -0,0 +1,9 @@
+package com.tariff.calculation.tariffCalc.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({ UpstreamProperties.class, FreshnessProperties.class })
+public class UpstreamClientConfig {
+}
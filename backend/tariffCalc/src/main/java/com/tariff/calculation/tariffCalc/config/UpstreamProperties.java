@@ -0,0 +1,53 @@
+package com.tariff.calculation.tariffCalc.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/*
+ * Per-upstream protection settings, keyed by client name ("moach", "wits").
+ * A client without an entry gets the defaults below.
+ */
+@Data
+@ConfigurationProperties(prefix = "upstream")
+public class UpstreamProperties {
+
+    private Map<String, Policy> clients = new HashMap<>();
+
+    public Policy policy(String name) {
+        return clients.getOrDefault(name, new Policy());
+    }
+
+    @Data
+    public static class Policy {
+
+        // Timeouts of a single attempt
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        private Duration readTimeout = Duration.ofSeconds(10);
+
+        // Token bucket: sustained requests per second and burst size
+        private double ratePerSecond = 10;
+        private int burst = 20;
+        // Longest a caller waits for a token before getting a 503
+        private Duration maxRateWait = Duration.ofSeconds(1);
+
+        // Circuit breaker over the last slidingWindow calls
+        private int slidingWindow = 20;
+        private int minimumCalls = 10;
+        private int failureRateThreshold = 50;
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int halfOpenCalls = 2;
+
+        // Retries of failed attempts (timeouts, 429, 5xx)
+        private int maxRetries = 2;
+        // Retries allowed as a fraction of requests over the last 10 seconds, plus a small floor
+        private double retryRatio = 0.1;
+        private int minRetriesPerSecond = 1;
+        private Duration retryBaseDelay = Duration.ofMillis(100);
+        private Duration retryMaxDelay = Duration.ofSeconds(2);
+    }
+}
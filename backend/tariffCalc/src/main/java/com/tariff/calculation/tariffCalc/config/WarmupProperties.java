@@ -0,0 +1,48 @@
+package com.tariff.calculation.tariffCalc.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/*
+ * What the warm-up crawler preloads and how hard it may push the upstream APIs.
+ * Every reporter is combined with every item name and HS code.
+ */
+@Data
+@ConfigurationProperties(prefix = "tariff.warmup")
+public class WarmupProperties {
+
+    // Off by default, the crawler only runs when switched on
+    private boolean enabled = false;
+
+    // Off-peak schedule, Spring cron syntax
+    private String cron = "0 0 3 * * *";
+
+    // Reporting country numbers to warm up
+    private List<Integer> reporters = new ArrayList<>();
+
+    // Also warm up every reporter with its own item codes (customValid)
+    private boolean includeCustomReporters = true;
+
+    // Item names as a user would type them, resolved through the item API if needed
+    private List<String> items = new ArrayList<>();
+
+    // HS codes of items that are already stored
+    private List<Integer> hsCodes = new ArrayList<>();
+
+    // Upstream calls in flight at once
+    private int concurrency = 2;
+
+    // Minimum gap between starting two tasks
+    private Duration minInterval = Duration.ofMillis(500);
+
+    // A run stops starting new tasks after this long, the rest resume on the next run
+    private Duration maxDuration = Duration.ofHours(2);
+
+    // A task that failed this many times is left alone until the next cycle
+    private int maxAttempts = 3;
+}
@@ -0,0 +1,73 @@
+package com.tariff.calculation.tariffCalc.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import com.tariff.calculation.tariffCalc.upstream.NegativeCache;
+import com.tariff.calculation.tariffCalc.upstream.NegativeResult;
+
+@Tag(name = "Negative Cache Controller", description = "Inspect and clear cached upstream \"no data\" answers")
+@RequestMapping("/tariff/admin/negative-cache")
+@RestController
+public class NegativeCacheController {
+
+    private final NegativeCache negativeCache;
+
+    @Autowired
+    public NegativeCacheController(NegativeCache negativeCache) {
+        this.negativeCache = negativeCache;
+    }
+
+    @Operation(summary = "List cached misses", description = "Upstream lookups currently known to have no data, newest first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Entries returned", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = NegativeResult.class))
+            })
+    })
+    @GetMapping
+    public ResponseEntity<List<NegativeResult>> getEntries(
+            @Parameter(description = "Only entries of this endpoint (moach-tariff, moach-item, wits)") @RequestParam(required = false) String endpoint) {
+        List<NegativeResult> entries = negativeCache.entries();
+        if (endpoint != null) {
+            entries = entries.stream().filter((entry) -> endpoint.equals(entry.getEndpoint())).toList();
+        }
+        return ResponseEntity.ok(entries);
+    }
+
+    /*
+     * Clears one entry (endpoint and key), one endpoint, or everything
+     */
+    @Operation(summary = "Clear cached misses", description = "Clears a single entry when endpoint and key are given, all entries of an endpoint when only endpoint is given, else everything")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Number of entries removed", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Key given without endpoint", content = @Content)
+    })
+    @DeleteMapping
+    public ResponseEntity<Map<String, Integer>> clear(
+            @Parameter(description = "Endpoint to clear") @RequestParam(required = false) String endpoint,
+            @Parameter(description = "Lookup key to clear, e.g. 156:6404110000") @RequestParam(required = false) String key) {
+        if (key != null && endpoint == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        int removed = key != null
+                ? (negativeCache.evict(endpoint, key) ? 1 : 0)
+                : negativeCache.clear(endpoint);
+        return ResponseEntity.ok(Map.of("removed", removed));
+    }
+}
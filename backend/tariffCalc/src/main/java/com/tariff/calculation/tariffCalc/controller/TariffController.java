@@ -3,8 +3,11 @@ package com.tariff.calculation.tariffCalc.controller;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,6 +15,11 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -23,8 +31,11 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 
 import com.tariff.calculation.tariffCalc.country.Country;
+import com.tariff.calculation.tariffCalc.dto.BatchTariffResultDTO;
 import com.tariff.calculation.tariffCalc.dto.GeneralTariffDTO;
 import com.tariff.calculation.tariffCalc.dto.TariffCalculationQueryDTO;
+import com.tariff.calculation.tariffCalc.dto.TariffComparisonQueryDTO;
+import com.tariff.calculation.tariffCalc.dto.TariffComparisonResultDTO;
 import com.tariff.calculation.tariffCalc.dto.TariffOverviewResponseDTO;
 import com.tariff.calculation.tariffCalc.service.TariffCalculationService;
 import com.tariff.calculation.tariffCalc.service.TariffOverviewService;
@@ -32,12 +43,18 @@ import com.tariff.calculation.tariffCalc.tariff.Tariff;
 import com.tariff.calculation.tariffCalc.tariff.TariffRepo;
 import com.tariff.calculation.tariffCalc.dto.TariffResponseDTO;
 import com.tariff.calculation.tariffCalc.exception.ApiFailureException;
+import com.tariff.calculation.tariffCalc.exception.UpstreamUnavailableException;
 
 @Tag(name = "Tariff Controller", description = "Tariff calculation and overview endpoints")
 @RequestMapping("/tariff")
 @RestController
 public class TariffController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    // No separator between root values, each line is ended explicitly
+    private static final ObjectMapper NDJSON_MAPPER = new ObjectMapper(
+            new JsonFactoryBuilder().rootValueSeparator((String) null).build());
+
     private final TariffCalculationService tariffService;
     private final TariffOverviewService tariffOverviewService;
 
@@ -78,7 +95,8 @@ public class TariffController {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = TariffResponseDTO.class))
             }),
             @ApiResponse(responseCode = "400", description = "Invalid request parameters", content = @Content),
-            @ApiResponse(responseCode = "404", description = "Tariff data not found", content = @Content)
+            @ApiResponse(responseCode = "404", description = "Tariff data not found", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Upstream tariff API unavailable, try again later", content = @Content)
     })
     @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Tariff calculation query parameters", 
         required = true, content = @Content(mediaType = "application/json", 
@@ -101,6 +119,41 @@ public class TariffController {
         } catch (ApiFailureException e) {
             log.info(e.getMessage());
             return ResponseEntity.notFound().build();
+        } catch (UpstreamUnavailableException e) {
+            log.info(e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (Exception e) {
+            log.info(e.getMessage()); 
+            return ResponseEntity.internalServerError().build();
+        }
+
+        return ResponseEntity.ok(response);
+    }
+    
+    /*
+     * Get tariff details for a whole shipment in one round-trip
+     */
+    @Operation(summary = "Get current year tariff details in batch", description = "Calculate tariff details for a list of queries. Each entry carries its own response or error")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed, see each entry for its status", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = BatchTariffResultDTO.class))
+            }),
+            @ApiResponse(responseCode = "400", description = "Empty or oversized batch", content = @Content)
+    })
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "List of tariff calculation queries", 
+        required = true, content = @Content(mediaType = "application/json", 
+            examples = @ExampleObject(value = "[ { \"reportingCountry\": \"China\", \"partnerCountry\": \"India\", \"item\": \"Slipper\", \"itemCost\": 1000.0 }, { \"reportingCountry\": \"China\", \"partnerCountry\": \"Japan\", \"item\": \"Slipper\", \"itemCost\": 250.0 } ]")
+    ))
+    @PostMapping("/current/batch")
+    public ResponseEntity<List<BatchTariffResultDTO>> getCurrentTariffDetailsBatch(
+            @RequestBody List<TariffCalculationQueryDTO> queryDTOs) {
+
+        List<BatchTariffResultDTO> response = null;
+        try {
+            response = tariffService.getCurrentTariffDetailsBatch(queryDTOs);
+        } catch (IllegalArgumentException e) {
+            log.info(e.getMessage());
+            return ResponseEntity.badRequest().body(null);
         } catch (Exception e) {
             log.info(e.getMessage()); 
             return ResponseEntity.internalServerError().build();
@@ -109,6 +162,47 @@ public class TariffController {
         return ResponseEntity.ok(response);
     }
     
+    /*
+     * Compare what every reporting country charges on the item from the partner
+     */
+    @Operation(summary = "Compare current tariffs across reporters", description = "Calculates the tariff on the item from the partner country for every reporting country in parallel. Results are streamed as NDJSON (one object per line) as each reporter completes. Reporters without tariff data are marked with noData")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Comparison streamed, see each line for its status", content = {
+                    @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = TariffComparisonResultDTO.class))
+            }),
+            @ApiResponse(responseCode = "400", description = "Unknown partner country or missing item / cost", content = @Content)
+    })
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Partner country, item and item cost", 
+        required = true, content = @Content(mediaType = "application/json", 
+            schema = @Schema(implementation = TariffComparisonQueryDTO.class), 
+            examples = @ExampleObject(value = "{ \"partnerCountry\": \"India\", \"item\": \"Slipper\", \"itemCost\": 1000.0 }")
+    ))
+    @PostMapping("/current/compare")
+    public ResponseEntity<StreamingResponseBody> getCurrentTariffComparison(
+            @RequestBody TariffComparisonQueryDTO queryDTO) {
+
+        Stream<TariffComparisonResultDTO> results;
+        try {
+            results = tariffService.getCurrentTariffComparison(queryDTO);
+        } catch (IllegalArgumentException e) {
+            log.info(e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Each line is flushed on its own so the client sees reporters as they finish
+        StreamingResponseBody body = (out) -> {
+            try (results; JsonGenerator generator = NDJSON_MAPPER.createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                for (TariffComparisonResultDTO result : (Iterable<TariffComparisonResultDTO>) results::iterator) {
+                    generator.writeObject(result);
+                    generator.writeRaw('\n');
+                    generator.flush();
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
     /*
      * Get tariff details for item between two countries of selected year
      */
@@ -118,7 +212,8 @@ public class TariffController {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = TariffOverviewResponseDTO.class))
             }),
             @ApiResponse(responseCode = "400", description = "Invalid request parameters", content = @Content),
-            @ApiResponse(responseCode = "404", description = "Historical tariff data not found", content = @Content)
+            @ApiResponse(responseCode = "404", description = "Historical tariff data not found", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Upstream tariff API unavailable, try again later", content = @Content)
     })
     @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Tariff calculation query parameters", 
         required = true, content = @Content(mediaType = "application/json", 
@@ -141,6 +236,9 @@ public class TariffController {
         } catch (ApiFailureException e) {
             log.info(e.getMessage());
             return ResponseEntity.notFound().build();
+        } catch (UpstreamUnavailableException e) {
+            log.info(e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (Exception e) {
             log.info(e.getMessage()); 
             return ResponseEntity.internalServerError().build();
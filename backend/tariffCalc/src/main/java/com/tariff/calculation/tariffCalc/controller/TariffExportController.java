@@ -0,0 +1,101 @@
+package com.tariff.calculation.tariffCalc.controller;
+
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import com.tariff.calculation.tariffCalc.dto.TariffExportFilterDTO;
+import com.tariff.calculation.tariffCalc.service.TariffExportService;
+import com.tariff.calculation.tariffCalc.service.TariffExportService.Format;
+
+@Tag(name = "Tariff Export Controller", description = "Bulk export of the stored tariffs")
+@RequestMapping("/tariff/admin/export")
+@RestController
+public class TariffExportController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    private final TariffExportService tariffExportService;
+    // Every running export holds a database connection for its whole duration
+    private final Semaphore exportPermits;
+
+    private final Logger log = Logger.getLogger(TariffExportController.class.getName());
+
+    @Autowired
+    public TariffExportController(TariffExportService tariffExportService,
+            @Value("${tariff.export.max-concurrent:2}") int maxConcurrentExports) {
+        this.tariffExportService = tariffExportService;
+        this.exportPermits = new Semaphore(maxConcurrentExports);
+    }
+
+    /*
+     * Streams every matching tariff as it is read from the database
+     */
+    @Operation(summary = "Export tariffs", description = "Streams all stored tariffs matching the filters as NDJSON (one object per line) or CSV. Countries are filtered by country number, items by HS code")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export streamed", content = {
+                    @Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv")
+            }),
+            @ApiResponse(responseCode = "400", description = "Unknown format or invalid date range", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Too many exports running, try again later", content = @Content)
+    })
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> export(
+            @Parameter(description = "ndjson (default) or csv") @RequestParam(defaultValue = "ndjson") String format,
+            @Parameter(description = "Reporting country number") @RequestParam(required = false) Integer reporter,
+            @Parameter(description = "Partner country number") @RequestParam(required = false) Integer partner,
+            @Parameter(description = "HS code of the item") @RequestParam(required = false) Integer item,
+            @Parameter(description = "First date, inclusive (yyyy-MM-dd)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last date, inclusive (yyyy-MM-dd)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        Format exportFormat;
+        try {
+            exportFormat = Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!exportPermits.tryAcquire()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+
+        TariffExportFilterDTO filter = new TariffExportFilterDTO(reporter, partner, item, from, to);
+        StreamingResponseBody body = (out) -> {
+            try {
+                tariffExportService.export(filter, exportFormat, out);
+            } finally {
+                exportPermits.release();
+            }
+        };
+        String fileName = "tariffs." + (exportFormat == Format.CSV ? "csv" : "ndjson");
+        log.info("Starting tariff export " + filter + " as " + exportFormat);
+        return ResponseEntity.ok()
+                .contentType(exportFormat == Format.CSV ? CSV : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,113 @@
+package com.tariff.calculation.tariffCalc.controller;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import com.tariff.calculation.tariffCalc.bulkimport.QuarantinedLine;
+import com.tariff.calculation.tariffCalc.dto.ImportJobDTO;
+import com.tariff.calculation.tariffCalc.service.TariffImportService;
+
+@Tag(name = "Tariff Import Controller", description = "Bulk import of tariff schedule files")
+@RequestMapping("/tariff/admin/import")
+@RestController
+public class TariffImportController {
+
+    private static final int MAX_QUARANTINED_LIMIT = 1000;
+
+    private final TariffImportService tariffImportService;
+
+    private final Logger log = Logger.getLogger(TariffImportController.class.getName());
+
+    @Autowired
+    public TariffImportController(TariffImportService tariffImportService) {
+        this.tariffImportService = tariffImportService;
+    }
+
+    /*
+     * Spools the upload to a temp file and imports it in the background
+     */
+    @Operation(summary = "Import a tariff schedule", description = "Uploads a CSV schedule (reporter,partner,hsCode,rate,date[,description] per line) and imports it in the background. Poll the returned job for progress")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Import started", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ImportJobDTO.class))
+            }),
+            @ApiResponse(responseCode = "400", description = "Empty file", content = @Content),
+            @ApiResponse(responseCode = "409", description = "An import is already running", content = @Content)
+    })
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportJobDTO> importSchedule(
+            @Parameter(description = "Schedule file in CSV") @RequestPart("file") MultipartFile file) throws IOException {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        Path schedule = Files.createTempFile("tariff-import-", ".csv");
+        file.transferTo(schedule);
+        Optional<ImportJobDTO> job = tariffImportService.start(schedule, file.getOriginalFilename());
+        if (job.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        log.info("Import " + job.get().id() + " started for " + file.getOriginalFilename() + " (" + file.getSize() + " bytes)");
+        return ResponseEntity.accepted().body(job.get());
+    }
+
+    @Operation(summary = "List imports", description = "The most recent imports since startup, oldest first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Imports returned", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ImportJobDTO.class))
+            })
+    })
+    @GetMapping
+    public ResponseEntity<List<ImportJobDTO>> getJobs() {
+        return ResponseEntity.ok(tariffImportService.getJobs());
+    }
+
+    @Operation(summary = "Get import progress", description = "Lines read, rows parsed, quarantined and loaded so far")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import found", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ImportJobDTO.class))
+            }),
+            @ApiResponse(responseCode = "404", description = "Unknown import", content = @Content)
+    })
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportJobDTO> getJob(@PathVariable String id) {
+        return ResponseEntity.of(tariffImportService.getJob(id));
+    }
+
+    @Operation(summary = "Get quarantined lines", description = "Lines of an import that could not be parsed, with the reason, in file order")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lines returned", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = QuarantinedLine.class))
+            })
+    })
+    @GetMapping("/{id}/quarantined")
+    public ResponseEntity<List<QuarantinedLine>> getQuarantinedLines(@PathVariable String id,
+            @Parameter(description = "Maximum number of lines returned") @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_QUARANTINED_LIMIT));
+        return ResponseEntity.ok(tariffImportService.getQuarantinedLines(id, pageSize));
+    }
+}
@@ -0,0 +1,59 @@
+package com.tariff.calculation.tariffCalc.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import com.tariff.calculation.tariffCalc.dto.WarmupStatusDTO;
+import com.tariff.calculation.tariffCalc.service.WarmupService;
+
+@Tag(name = "Warm-up Controller", description = "Progress and manual trigger of the cache warm-up crawler")
+@RequestMapping("/tariff/admin/warmup")
+@RestController
+public class WarmupController {
+
+    private final WarmupService warmupService;
+
+    @Autowired
+    public WarmupController(WarmupService warmupService) {
+        this.warmupService = warmupService;
+    }
+
+    @Operation(summary = "Get warm-up status", description = "Progress of the current warm-up cycle over the configured reporter/item combinations")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Status returned", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = WarmupStatusDTO.class))
+            })
+    })
+    @GetMapping("/status")
+    public ResponseEntity<WarmupStatusDTO> getStatus() {
+        return ResponseEntity.ok(warmupService.getStatus());
+    }
+
+    /*
+     * Starts a run in the background, resuming the current cycle
+     */
+    @Operation(summary = "Start a warm-up run", description = "Starts a warm-up run in the background, even if the schedule is disabled")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Run started", content = @Content),
+            @ApiResponse(responseCode = "409", description = "A run is already in progress", content = @Content)
+    })
+    @PostMapping("/run")
+    public ResponseEntity<Void> run() {
+        if (!warmupService.runAsync()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.accepted().build();
+    }
+}
@@ -0,0 +1,160 @@
+package com.tariff.calculation.tariffCalc.country;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/*
+ * In-memory, read-only view of the country table.
+ *
+ * The ~250 countries are seeded once by DataLoader and basically never change,
+ * so every lookup the tariff services do (by name, code, number, substring and
+ * the "world"/"developing" sentinels) is answered from an immutable snapshot
+ * instead of going to the database. A new snapshot is built and swapped in
+ * whenever the table is changed through reload().
+ */
+@Component
+public class CountryDirectory {
+
+    public static final String WORLD = "world";
+    public static final String DEVELOPING = "developing";
+
+    private final Logger log = LoggerFactory.getLogger(CountryDirectory.class);
+
+    private final CountryRepo countryRepo;
+    private volatile Snapshot snapshot;
+
+    public CountryDirectory(CountryRepo countryRepo) {
+        this.countryRepo = countryRepo;
+    }
+
+    /*
+     * Rebuilds the snapshot from the database and swaps it in atomically.
+     * Readers either see the old snapshot or the new one, never a half built one.
+     */
+    public synchronized void reload() {
+        snapshot = new Snapshot(countryRepo.findAll());
+        log.info("Country directory loaded with {} countries", snapshot.countries.size());
+    }
+
+    public Optional<Country> findByName(String countryName) {
+        if (countryName == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(current().byName.get(countryName));
+    }
+
+    public Optional<Country> findByCode(String countryCode) {
+        if (countryCode == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(current().byCode.get(countryCode));
+    }
+
+    public Optional<Country> findByNumber(int countryNumber) {
+        return Optional.ofNullable(current().byNumber.get(countryNumber));
+    }
+
+    /*
+     * Same contract as CountryRepo.findFirstByCountryNameContainingIgnoreCase, but
+     * deterministic: countries are scanned in country number order.
+     */
+    public Optional<Country> findFirstByNameContainingIgnoreCase(String fragment) {
+        if (fragment == null) {
+            return Optional.empty();
+        }
+        Snapshot current = current();
+        String needle = fragment.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < current.lowerCaseNames.length; i++) {
+            if (current.lowerCaseNames[i].contains(needle)) {
+                return Optional.of(current.countries.get(i));
+            }
+        }
+        return Optional.empty();
+    }
+
+    public Country world() {
+        Country world = current().byName.get(WORLD);
+        if (world == null) {
+            log.info("World not found");
+            throw new NoSuchElementException("World not found");
+        }
+        return world;
+    }
+
+    public Country developing() {
+        Country developing = current().byName.get(DEVELOPING);
+        if (developing == null) {
+            log.info("Developing not found");
+            throw new NoSuchElementException("Developing not found");
+        }
+        return developing;
+    }
+
+    public List<Country> findAll() {
+        return current().countries;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    /*
+     * Immutable set of indexes over one read of the country table.
+     */
+    private static final class Snapshot {
+        private final List<Country> countries;
+        private final String[] lowerCaseNames;
+        private final Map<String, Country> byName;
+        private final Map<String, Country> byCode;
+        private final Map<Integer, Country> byNumber;
+
+        private Snapshot(List<Country> loaded) {
+            List<Country> sorted = new ArrayList<>(loaded);
+            sorted.sort(Comparator.comparing(Country::getCountryNumber));
+
+            Map<String, Country> names = new HashMap<>();
+            Map<String, Country> codes = new HashMap<>();
+            Map<Integer, Country> numbers = new HashMap<>();
+            String[] lowerCase = new String[sorted.size()];
+
+            for (int i = 0; i < sorted.size(); i++) {
+                Country country = sorted.get(i);
+                if (country.getCountryName() != null) {
+                    names.putIfAbsent(country.getCountryName(), country);
+                }
+                if (country.getCountryCode() != null) {
+                    codes.putIfAbsent(country.getCountryCode(), country);
+                }
+                numbers.put(country.getCountryNumber(), country);
+                lowerCase[i] = country.getCountryName() == null ? ""
+                        : country.getCountryName().toLowerCase(Locale.ROOT);
+            }
+
+            this.countries = Collections.unmodifiableList(sorted);
+            this.lowerCaseNames = lowerCase;
+            this.byName = Map.copyOf(names);
+            this.byCode = Map.copyOf(codes);
+            this.byNumber = Map.copyOf(numbers);
+        }
+    }
+}
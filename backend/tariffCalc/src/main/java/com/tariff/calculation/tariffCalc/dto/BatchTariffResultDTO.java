@@ -0,0 +1,36 @@
+package com.tariff.calculation.tariffCalc.dto;
+
+import java.util.NoSuchElementException;
+
+import com.tariff.calculation.tariffCalc.exception.ApiFailureException;
+import com.tariff.calculation.tariffCalc.exception.UpstreamUnavailableException;
+
+/*
+ * One entry of a batch tariff response. Either carries the TariffResponseDTO of
+ * the query at that index, or the status and message the single /tariff/current
+ * endpoint would have answered with.
+ */
+public record BatchTariffResultDTO (
+    int index,
+    int status,
+    TariffResponseDTO response,
+    String error
+) {
+    public static BatchTariffResultDTO success(int index, TariffResponseDTO response) {
+        return new BatchTariffResultDTO(index, 200, response, null);
+    }
+
+    public static BatchTariffResultDTO failure(int index, RuntimeException e) {
+        int status;
+        if (e instanceof IllegalArgumentException) {
+            status = 400;
+        } else if (e instanceof NoSuchElementException || e instanceof ApiFailureException) {
+            status = 404;
+        } else if (e instanceof UpstreamUnavailableException) {
+            status = 503;
+        } else {
+            status = 500;
+        }
+        return new BatchTariffResultDTO(index, status, null, e.getMessage());
+    }
+}
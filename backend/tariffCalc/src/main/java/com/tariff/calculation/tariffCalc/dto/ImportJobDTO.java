@@ -0,0 +1,22 @@
+package com.tariff.calculation.tariffCalc.dto;
+
+import java.time.LocalDateTime;
+
+/*
+ * Progress of a tariff schedule import. rowsLoaded is only known once the rows
+ * have been merged into the tariff table at the end of the job.
+ */
+public record ImportJobDTO (
+    String id,
+    String fileName,
+    String state,
+    long linesRead,
+    long rowsParsed,
+    long rowsQuarantined,
+    long itemsCreated,
+    long rowsLoaded,
+    LocalDateTime startedAt,
+    LocalDateTime finishedAt,
+    String error
+) {
+}
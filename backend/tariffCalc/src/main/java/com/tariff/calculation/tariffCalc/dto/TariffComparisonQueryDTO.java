@@ -0,0 +1,17 @@
+package com.tariff.calculation.tariffCalc.dto;
+
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+/*
+ * DTO for comparing what every reporting country charges on an item from one
+ * partner country.
+ */
+public record TariffComparisonQueryDTO (
+    String partnerCountry,
+
+    @Pattern(regexp = "[a-zA-Z0-9 ]+", message="Only characters allowed") @Size(max=100)
+    String item,
+    Double itemCost
+)
+{}
@@ -0,0 +1,35 @@
+package com.tariff.calculation.tariffCalc.dto;
+
+import java.util.NoSuchElementException;
+
+import com.tariff.calculation.tariffCalc.exception.ApiFailureException;
+import com.tariff.calculation.tariffCalc.exception.UpstreamUnavailableException;
+
+/*
+ * One line of a tariff comparison: what a single reporting country charges.
+ * Status follows the batch endpoint, 404 meaning the reporter has no tariff
+ * data for the item (noData is set for those).
+ */
+public record TariffComparisonResultDTO (
+    String reportingCountry,
+    int status,
+    boolean noData,
+    TariffResponseDTO response,
+    String error
+) {
+    public static TariffComparisonResultDTO success(String reportingCountry, TariffResponseDTO response) {
+        return new TariffComparisonResultDTO(reportingCountry, 200, false, response, null);
+    }
+
+    public static TariffComparisonResultDTO noData(String reportingCountry, String reason) {
+        return new TariffComparisonResultDTO(reportingCountry, 404, true, null, reason);
+    }
+
+    public static TariffComparisonResultDTO failure(String reportingCountry, RuntimeException e) {
+        if (e instanceof NoSuchElementException || e instanceof ApiFailureException) {
+            return noData(reportingCountry, e.getMessage());
+        }
+        int status = e instanceof UpstreamUnavailableException ? 503 : 500;
+        return new TariffComparisonResultDTO(reportingCountry, status, false, null, e.getMessage());
+    }
+}
@@ -0,0 +1,16 @@
+package com.tariff.calculation.tariffCalc.dto;
+
+import java.time.LocalDate;
+
+/*
+ * Optional filters of a tariff export. Null means "any". Countries are given by
+ * country number, the item by HS code, and the date range is inclusive.
+ */
+public record TariffExportFilterDTO (
+    Integer reportingCountry,
+    Integer partnerCountry,
+    Integer itemCode,
+    LocalDate from,
+    LocalDate to
+) {
+}
@@ -0,0 +1,18 @@
+package com.tariff.calculation.tariffCalc.dto;
+
+import java.time.LocalDateTime;
+
+/*
+ * Progress of the warm-up crawler over the currently configured tasks.
+ */
+public record WarmupStatusDTO(
+    boolean enabled,
+    boolean running,
+    int total,
+    int done,
+    int failed,
+    int pending,
+    LocalDateTime lastStarted,
+    LocalDateTime lastFinished
+)
+{}
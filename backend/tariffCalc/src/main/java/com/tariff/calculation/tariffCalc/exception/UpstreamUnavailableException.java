@@ -0,0 +1,12 @@
+package com.tariff.calculation.tariffCalc.exception;
+
+/*
+ * An upstream API could not be asked at all: its circuit breaker is open or its
+ * rate limit would have made us wait too long. Unlike ApiFailureException this
+ * says nothing about the data, so callers should answer 503 rather than 404.
+ */
+public class UpstreamUnavailableException extends RuntimeException {
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+}
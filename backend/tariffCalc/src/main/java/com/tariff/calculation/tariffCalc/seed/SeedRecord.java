@@ -0,0 +1,31 @@
+package com.tariff.calculation.tariffCalc.seed;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * Checksum of the reference data file a seed set was last applied from, so
+ * DataLoader only re-applies it when the file changes.
+ */
+@Entity
+@Table(name = "seed_record")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeedRecord {
+    @Id
+    private String name;
+
+    // SHA-256 of the file, hex encoded
+    private String checksum;
+
+    private int rowCount;
+
+    private LocalDateTime appliedAt;
+}
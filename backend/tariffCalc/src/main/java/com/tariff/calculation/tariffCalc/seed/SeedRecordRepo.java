@@ -0,0 +1,6 @@
+package com.tariff.calculation.tariffCalc.seed;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface SeedRecordRepo extends JpaRepository<SeedRecord, String> {
+}
@@ -4,13 +4,15 @@ import java.util.List;
 import java.util.Optional;
 
 import com.tariff.calculation.tariffCalc.country.Country;
+import com.tariff.calculation.tariffCalc.country.CountryDirectory;
 import com.tariff.calculation.tariffCalc.country.CountryRepo;
 import com.tariff.calculation.tariffCalc.dto.TariffDeleteDTO;
 import com.tariff.calculation.tariffCalc.item.Item;
 import com.tariff.calculation.tariffCalc.item.ItemRepo;
 import com.tariff.calculation.tariffCalc.tariff.Tariff;
+import com.tariff.calculation.tariffCalc.tariff.TariffHistoryRepo;
 import com.tariff.calculation.tariffCalc.tariff.TariffRepo;
-import com.tariff.calculation.tariffCalc.utility.LemmaUtils;
+import com.tariff.calculation.tariffCalc.utility.ItemNameNormalizer;
 
 import org.springframework.stereotype.Service;
 
@@ -18,31 +20,41 @@ import org.springframework.stereotype.Service;
 public class CrudServiceImpl implements CrudService {
     
     private final TariffRepo tariffRepo;
+    private final TariffHistoryRepo tariffHistoryRepo;
     private final ItemRepo itemRepo;
     private final CountryRepo countryRepo;
+    private final CountryDirectory countryDirectory;
+    private final ItemNameNormalizer itemNameNormalizer;
     
-    public CrudServiceImpl(TariffRepo tariffRepo, ItemRepo itemRepo, CountryRepo countryRepo) {
+    public CrudServiceImpl(TariffRepo tariffRepo, TariffHistoryRepo tariffHistoryRepo, ItemRepo itemRepo, CountryRepo countryRepo,
+            CountryDirectory countryDirectory, ItemNameNormalizer itemNameNormalizer) {
         this.tariffRepo = tariffRepo;
+        this.tariffHistoryRepo = tariffHistoryRepo;
         this.itemRepo = itemRepo;
         this.countryRepo = countryRepo;
+        this.countryDirectory = countryDirectory;
+        this.itemNameNormalizer = itemNameNormalizer;
     }
     
     // deleters
     public void deleteTariff(TariffDeleteDTO tariffDeleteDTO) {
-        Country reportingCountry = countryRepo.findByCountryName(tariffDeleteDTO.reportingCountry())
+        Country reportingCountry = countryDirectory.findByName(tariffDeleteDTO.reportingCountry())
                 .orElseThrow(() -> new IllegalArgumentException("Reporting country not found"));
 
-        Country partnerCountry = countryRepo.findByCountryName(tariffDeleteDTO.partnerCountry())
+        Country partnerCountry = countryDirectory.findByName(tariffDeleteDTO.partnerCountry())
                 .orElseThrow(() -> new IllegalArgumentException("Partner country not found"));
 
-        Item item = itemRepo.findByItemName(LemmaUtils.toSingular(tariffDeleteDTO.item().toLowerCase().trim()) + reportingCountry.getCountryNumber())
-                .orElseGet(() ->itemRepo.findByItemName(LemmaUtils.toSingular(tariffDeleteDTO.item().trim()).toLowerCase() 
-                            + "general")
+        String itemName = itemNameNormalizer.canonical(tariffDeleteDTO.item());
+        Item item = itemRepo.findByItemName(itemNameNormalizer.customItemName(itemName, reportingCountry.getCountryNumber()))
+                .orElseGet(() -> itemRepo.findByItemName(itemNameNormalizer.generalItemName(itemName))
                 .orElseThrow(() -> new IllegalArgumentException("Item not found for item " + tariffDeleteDTO.item())));
         
         List<Tariff> delete = tariffRepo.findByReportingCountryAndPartnerCountryAndItem(reportingCountry, partnerCountry, item);
+        // Compact storage keeps the history of the pair in its own row
+        long deletedHistory = tariffHistoryRepo.deleteByReportingCountryNumberAndPartnerCountryNumberAndItemCode(
+                reportingCountry.getCountryNumber(), partnerCountry.getCountryNumber(), item.getItemCode());
         
-        if (delete.size() == 0) {
+        if (delete.size() == 0 && deletedHistory == 0) {
             throw new IllegalArgumentException("This combination doesnt exists");
         }
         
@@ -55,6 +67,7 @@ public class CrudServiceImpl implements CrudService {
         Optional<Item> item = itemRepo.findById(id);
         if (item.isPresent()) {
             itemRepo.delete(item.get());
+            tariffHistoryRepo.deleteByItemCode(id);
         } else {
             throw new IllegalArgumentException("Item id is incorrect");
         }
@@ -64,6 +77,9 @@ public class CrudServiceImpl implements CrudService {
         Optional<Country> country = countryRepo.findById(countryId);
         if (country.isPresent()) {
             countryRepo.delete(country.get());
+            tariffHistoryRepo.deleteByCountryNumber(countryId);
+            // Keep the in-memory directory in step with the table
+            countryDirectory.reload();
         } else {
             throw new IllegalArgumentException("Country id is incorrect");
         }
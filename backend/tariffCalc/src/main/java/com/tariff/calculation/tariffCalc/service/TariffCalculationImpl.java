@@ -1,15 +1,36 @@
 package com.tariff.calculation.tariffCalc.service;
 
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Map;
 import java.util.Optional;
-
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import com.tariff.calculation.tariffCalc.config.ApiCredentials;
+import com.tariff.calculation.tariffCalc.config.FreshnessProperties;
 import com.tariff.calculation.tariffCalc.country.Country;
-import com.tariff.calculation.tariffCalc.country.CountryRepo;
+import com.tariff.calculation.tariffCalc.country.CountryDirectory;
+import com.tariff.calculation.tariffCalc.dto.BatchTariffResultDTO;
 import com.tariff.calculation.tariffCalc.dto.GeneralTariffDTO;
 import com.tariff.calculation.tariffCalc.dto.TariffCalculationQueryDTO;
+import com.tariff.calculation.tariffCalc.dto.TariffComparisonQueryDTO;
+import com.tariff.calculation.tariffCalc.dto.TariffComparisonResultDTO;
 import com.tariff.calculation.tariffCalc.dto.TariffResponseDTO;
 import com.tariff.calculation.tariffCalc.dto.itemApiDto.ItemRetrievalDTO;
 import com.tariff.calculation.tariffCalc.dto.currentTariffApiDto.MoachDTO;
@@ -19,13 +40,27 @@ import com.tariff.calculation.tariffCalc.dto.currentTariffApiDto.TariffRate;
 import com.tariff.calculation.tariffCalc.exception.ApiFailureException;
 import com.tariff.calculation.tariffCalc.item.Item;
 import com.tariff.calculation.tariffCalc.item.ItemRepo;
+import com.tariff.calculation.tariffCalc.tariff.IndexedRate;
 import com.tariff.calculation.tariffCalc.tariff.Tariff;
+import com.tariff.calculation.tariffCalc.tariff.TariffRateIndex;
+import com.tariff.calculation.tariffCalc.tariff.TariffRateView;
 import com.tariff.calculation.tariffCalc.tariff.TariffRepo;
-import com.tariff.calculation.tariffCalc.utility.LemmaUtils;
+import com.tariff.calculation.tariffCalc.upstream.NegativeCache;
+import com.tariff.calculation.tariffCalc.upstream.UpstreamClients;
+import com.tariff.calculation.tariffCalc.utility.ItemNameNormalizer;
+import com.tariff.calculation.tariffCalc.utility.PhaseTimers;
+import com.tariff.calculation.tariffCalc.utility.SingleFlight;
+import com.tariff.calculation.tariffCalc.utility.TariffRateParser;
 
 import org.hibernate.mapping.Array;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 
@@ -47,23 +82,98 @@ public class TariffCalculationImpl implements TariffCalculationService {
     private final Logger log = LoggerFactory.getLogger(TariffCalculationImpl.class);
 
     private final RestClient restClientMoach;
-    private final CountryRepo countryRepo;
+    private final CountryDirectory countryDirectory;
     private final ItemRepo itemRepo;
     private final TariffRepo tariffRepo;
+    private final TariffRateIndex tariffRateIndex;
+    private final TariffIngestionService tariffIngestionService;
+    private final ItemNameNormalizer itemNameNormalizer;
+    private final ApiCredentials apiCredentials;
     private final List<Integer> customValid = List.of(96, 156, 918, 356, 360, 392, 410, 458, 104, 586, 608, 702, 158,
             764, 840, 704, 784);
+    private final int batchMaxSize;
+    private final Semaphore batchPermits;
+    // Shared by all running comparisons, only taken by reporters that have to ask the upstream API
+    private final Semaphore comparePermits;
+    // Shared by all running comparisons, taken around the database reads of every reporter
+    private final Semaphore compareDbPermits;
+    private final SingleFlight<String, Item> itemFlights;
+    private final SingleFlight<String, List<Tariff>> tariffFlights;
+    private final PhaseTimers phases;
+    private final Counter rateIndexHits;
+    private final Counter rateIndexMisses;
+    private final FreshnessProperties freshness;
+    private final NegativeCache negativeCache;
+    private final ThreadPoolExecutor refreshExecutor;
+    private final Set<String> refreshesQueued = ConcurrentHashMap.newKeySet();
+    // Day each (reporter, item) was last refreshed, so rows upstream no longer reports are not refetched all day
+    private final Map<String, LocalDate> lastRefreshed = new ConcurrentHashMap<>();
+    private final Counter staleServed;
+    private final Counter staleBlocked;
+    private final Counter refreshesDropped;
 
     public TariffCalculationImpl(
-            CountryRepo countryRepo,
+            CountryDirectory countryDirectory,
             ItemRepo itemRepo,
             TariffRepo tariffRepo,
-            RestClient.Builder restClientBuilder) {
-        this.countryRepo = countryRepo;
+            TariffRateIndex tariffRateIndex,
+            TariffIngestionService tariffIngestionService,
+            ItemNameNormalizer itemNameNormalizer,
+            ApiCredentials apiCredentials,
+            FreshnessProperties freshness,
+            NegativeCache negativeCache,
+            UpstreamClients upstreamClients,
+            MeterRegistry meterRegistry,
+            @Value("${tariff.batch.max-size:100}") int batchMaxSize,
+            @Value("${tariff.batch.max-concurrency:8}") int batchMaxConcurrency,
+            @Value("${tariff.compare.max-upstream-concurrency:8}") int compareMaxUpstreamConcurrency,
+            @Value("${tariff.compare.max-db-concurrency:4}") int compareMaxDbConcurrency,
+            @Value("${moach.base-url:https://mtech-api.com/client/api}") String moachBaseUrl) {
+        this.countryDirectory = countryDirectory;
         this.itemRepo = itemRepo;
         this.tariffRepo = tariffRepo;
-        this.restClientMoach = restClientBuilder.clone()
-                .baseUrl("https://mtech-api.com/client/api")
-                .build();
+        this.tariffRateIndex = tariffRateIndex;
+        this.tariffIngestionService = tariffIngestionService;
+        this.itemNameNormalizer = itemNameNormalizer;
+        this.apiCredentials = apiCredentials;
+        this.restClientMoach = upstreamClients.create("moach", moachBaseUrl);
+        this.batchMaxSize = batchMaxSize;
+        this.batchPermits = new Semaphore(batchMaxConcurrency);
+        this.comparePermits = new Semaphore(compareMaxUpstreamConcurrency);
+        this.compareDbPermits = new Semaphore(compareMaxDbConcurrency);
+        this.itemFlights = new SingleFlight<>("moach-item", meterRegistry);
+        this.tariffFlights = new SingleFlight<>("moach-tariff", meterRegistry);
+        this.phases = new PhaseTimers(meterRegistry, "current");
+        this.rateIndexHits = Counter.builder("tariff.cache.requests")
+                .tag("cache", "rate-index")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.rateIndexMisses = Counter.builder("tariff.cache.requests")
+                .tag("cache", "rate-index")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.freshness = freshness;
+        this.negativeCache = negativeCache;
+        this.refreshExecutor = new ThreadPoolExecutor(freshness.getRefreshConcurrency(),
+                freshness.getRefreshConcurrency(), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(freshness.getRefreshQueueSize()),
+                Thread.ofVirtual().name("tariff-refresh-", 0).factory());
+        this.refreshExecutor.allowCoreThreadTimeOut(true);
+        this.staleServed = Counter.builder("tariff.freshness.stale")
+                .tag("action", "served")
+                .register(meterRegistry);
+        this.staleBlocked = Counter.builder("tariff.freshness.stale")
+                .tag("action", "blocked")
+                .register(meterRegistry);
+        this.refreshesDropped = Counter.builder("tariff.freshness.refresh.dropped")
+                .description("Background refreshes rejected because the refresh queue was full")
+                .register(meterRegistry);
+    }
+
+    // Queued refreshes are dropped, running ones interrupted before the DataSource goes away
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
     }
 
     /*
@@ -89,22 +199,30 @@ public class TariffCalculationImpl implements TariffCalculationService {
             countryNumber = "0" + countryNumber;
         }
         
-        MoachDTO result = restClientMoach.get()
-                .uri("/tariff-data?product=" + item.getItemCode() + "&destination=" + countryNumber
-                        + "&token=" + LemmaUtils.getEnvOrDotenv("MOACH_API_KEY"))
+        // Countries known not to trade the item are not asked again until the entry expires
+        String missKey = countryNumber + ":" + item.getItemCode();
+        if (negativeCache.isKnownMiss(NegativeCache.MOACH_TARIFF, missKey)) {
+            throw new ApiFailureException("No tariff data for " + missKey);
+        }
+
+        // URI template so http.client.requests is tagged by endpoint, not by every product and token
+        String destination = countryNumber;
+        MoachDTO result = phases.record(PhaseTimers.UPSTREAM, () -> restClientMoach.get()
+                .uri("/tariff-data?product={product}&destination={destination}&token={token}",
+                        item.getItemCode(), destination, apiCredentials.moachApiKey())
                 .retrieve()
                 .onStatus((status) -> status.value() == 400 || status.value() == 404, (request, response) -> {
                     // This one occurs if that country doesnt trade that item......
                     log.info("Api not found");
+                    negativeCache.recordMiss(NegativeCache.MOACH_TARIFF, missKey, response.getStatusText());
                     throw new ApiFailureException(response.getStatusText());
                 })
-                .body(MoachDTO.class);
-        log.info("The result: " + result);
+                .body(MoachDTO.class));
         if (result == null || result.tariffData() == null) {
             throw new ApiFailureException("Unable to call api properly");
         }
 
-        log.info("Query results" + result.toString());
+        log.debug("Moach returned {} tariff data entries", result.tariffData().size());
         List<Tariff> res = new ArrayList<>();
 
         // sigh... This is gna be disgusting. Also, IDK why is there multiple data....
@@ -118,74 +236,42 @@ public class TariffCalculationImpl implements TariffCalculationService {
             String countriesInfo = tariffRate.countries();
 
             // Cheaper rate
-            List<String> countries; 
-            try {
-                countries = List
-                            .of(countriesInfo.substring(countriesInfo.indexOf('(') + 1, countriesInfo.indexOf(')'))
-                                    .split(","));
-                
-            } catch (StringIndexOutOfBoundsException e) {
-                countries = new ArrayList<>();
-            }
-            
-            log.info(countries.toString());
-            
-            String customRateInfo ;
-            try {
-                customRateInfo = countriesInfo.substring(countriesInfo.indexOf('('))
-                        .trim()
-                        .toLowerCase();                
-            } catch (StringIndexOutOfBoundsException e) {
-                customRateInfo = "0.0";
-            }
-
-            // Stores rateInfo as decimal as it is a percentage initially
-            if (customRateInfo.contains("%")) {
-                customRateInfo = customRateInfo.substring(0, customRateInfo.indexOf('%'));
-            }
-
-            Double customRateValue = customRateInfo.equals("free") ? 0 : Double.parseDouble(customRateInfo) / 100.0;
+            List<String> countries = TariffRateParser.specialRateCountryCodes(countriesInfo);
+            Double customRateValue = TariffRateParser.specialRate(countriesInfo);
             // log.info("Attempting to finding by Code");
-            log.info(countries.toString());
+            log.debug("{}", countries);
             countries.forEach((code) -> {
-                Optional<Country> country = countryRepo.findByCountryCode(code);
-                log.info("For coding: " + code);
+                Optional<Country> country = countryDirectory.findByCode(code);
+                log.debug("For coding: {}", code);
                 if (country.isPresent()) {
-                    Tariff tariff = tariffRepo
-                            .save(new Tariff(countryCode, country.get(), item, customRateValue, "Special Rate of Duty",
-                                    LocalDate.now()));
-                    res.add(tariff);
+                    res.add(new Tariff(countryCode, country.get(), item, customRateValue, "Special Rate of Duty",
+                            LocalDate.now()));
                 }
             });
 
             // log.info("No issue finding by Code");
             // test
             // This is the world case
-            Country world = countryRepo.findByCountryName("world").get();
-            String generalRateInfo = tariffRate.generalDutyRate().toLowerCase();
-            Double generalRateValue = generalRateInfo != null && !generalRateInfo.equals("free")
-                    ? Double.parseDouble(generalRateInfo)
-                    : 0.0;
-
-            Tariff tariff = tariffRepo.save(
-                    new Tariff(countryCode, world, item, generalRateValue, "General Rate of Duty", LocalDate.now()));
-            res.add(tariff);
+            Country world = countryDirectory.world();
+            Double generalRateValue = TariffRateParser.generalRate(tariffRate.generalDutyRate());
+
+            res.add(new Tariff(countryCode, world, item, generalRateValue, "General Rate of Duty", LocalDate.now()));
         }
 
         // This is the general case that all other tariff information seems to like to
         // follow.
         // If by some reason this no longer applies for some edge case... Well bops
         List<TableData> tariffInformation = tariffData.getCountryInformation();
-        log.info("The information " + tariffInformation.toString());
+        log.debug("Processing {} tariff table rows", tariffInformation.size());
         tariffInformation.forEach((information) -> {
             List<Country> country = new ArrayList<>();
             if (information.getTariffRegion().contains("MFN")) {
-                country.add(countryRepo.findByCountryName("world").get());
+                country.add(countryDirectory.world());
             } else if ("LDCs Preferential Tariff".equals(information.getTariffRegion())) {
-                country.add(countryRepo.findByCountryName("developing").get());
+                country.add(countryDirectory.developing());
             } else {
-                log.info("The country" + information.getTariffRegion().trim());
-                Optional<Country> firstCountry = countryRepo.findFirstByCountryNameContainingIgnoreCase(information.getTariffRegion().trim());
+                log.debug("The country {}", information.getTariffRegion());
+                Optional<Country> firstCountry = countryDirectory.findFirstByNameContainingIgnoreCase(information.getTariffRegion().trim());
                 if (!firstCountry.isEmpty()) {
                     country.add(firstCountry.get());
                 }
@@ -193,46 +279,35 @@ public class TariffCalculationImpl implements TariffCalculationService {
             // This is wrong because it is not standard how these countries are
             // described.....
             // help ping me for the sample queries
-            List<String> countryNames = List.of(information.getCountry()
-                    .replaceAll("ASEAN:", "")
-                    .trim()
-                    .split(","));
+            List<String> countryNames = TariffRateParser.applicableCountryNames(information.getCountry());
 
-            log.info(countryNames.toString());
+            log.debug("{}", countryNames);
 
             countryNames.forEach((names) -> {
-                log.info("For name: " + names);
-                Optional<Country> temp = countryRepo.findByCountryName(names.trim());
+                log.debug("For name: {}", names);
+                Optional<Country> temp = countryDirectory.findByName(names.trim());
                 if (temp.isPresent() && !country.contains(temp.get())) {
                     country.add(temp.get());
                 }
             });
 
             // log.info("No errors for parcing country names in the .country() part ");
-            String preProcessed = information.getTariffRate().trim();
-            log.info("Tariff before anything : " + preProcessed);
-            String regionTariffRate = preProcessed.contains("%") ? preProcessed.substring(0, preProcessed.indexOf('%'))
-                    : "";
-
-            // log.info("Region tariff rate : " + regionTariffRate);
-            double regionTariffRateValue = (regionTariffRate == null || "".equals(regionTariffRate)) ? 0.0
-                    : Double.parseDouble(regionTariffRate);
+            log.debug("Tariff before anything : {}", information.getTariffRate());
+            double regionTariffRateValue = TariffRateParser.regionRate(information.getTariffRate());
             // log.info("No problem with Tariff Loading" + regionTariffRateValue);
             // log.info("No problem with Tariff Saving");
-            log.info("Countries: " + country);
+            log.debug("Countries: {}", country);
             country.forEach((regionCountry) -> {
-                log.info("For regCountry: " + regionCountry);
+                log.debug("For regCountry: {}", regionCountry);
                 if (!customContains(res, countryCode, regionCountry)) {
-                    res.add(tariffRepo.save(
-                            new Tariff(countryCode, regionCountry, item, regionTariffRateValue,
-                                    information.getTariffRegion() + " " + information.getCountry(), LocalDate.now())));
+                    res.add(new Tariff(countryCode, regionCountry, item, regionTariffRateValue,
+                            information.getTariffRegion() + " " + information.getCountry(), LocalDate.now()));
                 }
             });
         });
 
-        // This infrastructure must be changed
-
-        return res;
+        // The whole response is written in one transaction with batched upserts
+        return phases.record(PhaseTimers.PERSISTENCE, () -> tariffIngestionService.ingest(res));
     }
 
     private boolean customContains(List<Tariff> list, Country countryCode, Country regionCountry) {
@@ -258,16 +333,21 @@ public class TariffCalculationImpl implements TariffCalculationService {
 
         ItemRetrievalDTO result;
         boolean general = countryNumber.equals("wto");
-        result = restClientMoach.get()
-                .uri("/hs-code-match?q=" + itemName + "&category=" + countryNumber + "&token="
-                        + LemmaUtils.getEnvOrDotenv("MOACH_API_KEY"))
+        String query = itemName;
+        String missKey = countryNumber + ":" + itemName;
+        if (negativeCache.isKnownMiss(NegativeCache.MOACH_ITEM, missKey)) {
+            throw new ApiFailureException("No item found for " + itemName);
+        }
+        result = phases.record(PhaseTimers.UPSTREAM, () -> restClientMoach.get()
+                .uri("/hs-code-match?q={item}&category={category}&token={token}",
+                        query, countryNumber, apiCredentials.moachApiKey())
                 .retrieve()
                 .onStatus((status) -> status.value() == 404 || status.value() == 400, (request, response) -> {
+                    negativeCache.recordMiss(NegativeCache.MOACH_ITEM, missKey, response.getStatusText());
                     throw new ApiFailureException(response.getStatusText());
                 })
-                .body(ItemRetrievalDTO.class);
+                .body(ItemRetrievalDTO.class));
 
-        log.info("Query results" + result.toString());
         if (result == null || result.data() == null) {
             throw new ApiFailureException("Api call failed");
         }
@@ -298,87 +378,518 @@ public class TariffCalculationImpl implements TariffCalculationService {
      */
     public TariffResponseDTO getCurrentTariffDetails(TariffCalculationQueryDTO tariffQueryDTO) {
         // This should already be statically loaded ahead of time
-        log.info(tariffQueryDTO.toString());
-        Country reportingCountry = countryRepo.findByCountryName(tariffQueryDTO.reportingCountry())
+        log.debug("{}", tariffQueryDTO);
+        Country reportingCountry = phases.record(PhaseTimers.COUNTRY,
+                () -> countryDirectory.findByName(tariffQueryDTO.reportingCountry()))
                 .orElseThrow(() -> new IllegalArgumentException("Country not found"));
-        Country partnerCountry = countryRepo.findByCountryName(tariffQueryDTO.partnerCountry())
+        Country partnerCountry = phases.record(PhaseTimers.COUNTRY,
+                () -> countryDirectory.findByName(tariffQueryDTO.partnerCountry()))
                 .orElseThrow(() -> new IllegalArgumentException("Country not found"));
         // Checks for item. If not in database, query from the actual API
-        Item item;
-
-        if (customValid.contains(reportingCountry.getCountryNumber())) {
-            item = itemRepo
-                    .findByItemName(LemmaUtils.toSingular(tariffQueryDTO.item()).toLowerCase().replaceAll(",", "")
-                            + reportingCountry.getCountryNumber())
-                    .orElseGet(() -> loadItemFromApi(LemmaUtils.toSingular(tariffQueryDTO.item().toLowerCase().replaceAll(",", "")),
-                            Integer.toString(reportingCountry.getCountryNumber())));
-        } else {
-            item = itemRepo.findByItemName(LemmaUtils.toSingular(tariffQueryDTO.item()).toLowerCase() + "general")
-                    .orElseGet(
-                            () -> loadItemFromApi(LemmaUtils.toSingular(tariffQueryDTO.item().toLowerCase()), "wto"));
+        Item item = phases.record(PhaseTimers.ITEM,
+                () -> resolveItem(reportingCountry, itemNameNormalizer.canonical(tariffQueryDTO.item())));
+
+        IndexedRate tariff = phases.record(PhaseTimers.DB, () -> resolveFreshTariff(reportingCountry, partnerCountry, item, true));
+        return phases.record(PhaseTimers.RESPONSE, () -> toResponse(tariffQueryDTO, reportingCountry, item, tariff));
+    }
+
+    /*
+     * Prices a whole shipment in one call. Queries are grouped by (reporter, item)
+     * so each group resolves its Item, loads its tariffs and looks up the rates of
+     * all its partners once, and groups that miss the database fan out to the
+     * upstream API concurrently.
+     *
+     * @Param tariffQueryDTOs the individual queries, answered in the same order
+     *
+     * @return one BatchTariffResultDTO per query, holding either the response or
+     * the status and message the single endpoint would have returned
+     */
+    public List<BatchTariffResultDTO> getCurrentTariffDetailsBatch(List<TariffCalculationQueryDTO> tariffQueryDTOs) {
+        if (tariffQueryDTOs == null || tariffQueryDTOs.isEmpty()) {
+            throw new IllegalArgumentException("Batch is empty");
+        }
+        if (tariffQueryDTOs.size() > batchMaxSize) {
+            throw new IllegalArgumentException("Batch is larger than " + batchMaxSize + " queries");
+        }
+
+        int size = tariffQueryDTOs.size();
+        Country[] reportingCountries = new Country[size];
+        Country[] partnerCountries = new Country[size];
+        BatchTariffResultDTO[] results = new BatchTariffResultDTO[size];
+        Map<String, BatchGroup> groups = new LinkedHashMap<>();
+
+        for (int i = 0; i < size; i++) {
+            TariffCalculationQueryDTO query = tariffQueryDTOs.get(i);
+            Optional<Country> reporting = countryDirectory.findByName(query.reportingCountry());
+            Optional<Country> partner = countryDirectory.findByName(query.partnerCountry());
+            if (reporting.isEmpty() || partner.isEmpty()) {
+                results[i] = BatchTariffResultDTO.failure(i, new IllegalArgumentException("Country not found"));
+                continue;
+            }
+            if (query.item() == null || query.itemCost() == null) {
+                results[i] = BatchTariffResultDTO.failure(i, new IllegalArgumentException(
+                        query.item() == null ? "Item is required" : "Item cost is required"));
+                continue;
+            }
+            reportingCountries[i] = reporting.get();
+            partnerCountries[i] = partner.get();
+            String groupKey = reporting.get().getCountryNumber() + "|" + itemNameNormalizer.canonical(query.item());
+            groups.computeIfAbsent(groupKey, (key) -> new BatchGroup(reporting.get(),
+                    itemNameNormalizer.canonical(query.item())))
+                  .partners.add(partner.get());
+        }
+
+        log.info("Resolving batch of {} queries in {} groups", size, groups.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            groups.values().forEach((group) -> executor.submit(() -> resolveGroup(group)));
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            TariffCalculationQueryDTO query = tariffQueryDTOs.get(i);
+            BatchGroup group = groups.get(reportingCountries[i].getCountryNumber() + "|"
+                    + itemNameNormalizer.canonical(query.item()));
+            try {
+                if (group.failure != null) {
+                    throw group.failure;
+                }
+                IndexedRate tariff = resolveFreshTariff(reportingCountries[i], partnerCountries[i], group.item, true);
+                results[i] = BatchTariffResultDTO.success(i, toResponse(query, reportingCountries[i], group.item, tariff));
+            } catch (RuntimeException e) {
+                log.info(e.getMessage());
+                results[i] = BatchTariffResultDTO.failure(i, e);
+            }
+        }
+        return List.of(results);
+    }
+
+    /*
+     * Prices the item from the partner against every reporting country. Each
+     * reporter runs on its own virtual thread and its result is handed out as
+     * soon as it completes. Reporters whose item and tariffs are already stored
+     * are answered from the database, the others wait for one of the shared
+     * upstream permits before calling the upstream API. Database reads take one
+     * of the shared database permits, so a comparison over every reporter cannot
+     * take the whole connection pool. Tariffs past the hard TTL are served stale
+     * with a background refresh, so no reporter calls upstream without a permit.
+     *
+     * @Param comparisonQueryDTO the partner country, item and item cost
+     *
+     * @return a stream of one TariffComparisonResultDTO per reporter, in
+     * completion order. Closing it interrupts the reporters still running.
+     */
+    public Stream<TariffComparisonResultDTO> getCurrentTariffComparison(TariffComparisonQueryDTO comparisonQueryDTO) {
+        if (comparisonQueryDTO == null || comparisonQueryDTO.item() == null || comparisonQueryDTO.item().isBlank()
+                || comparisonQueryDTO.itemCost() == null) {
+            throw new IllegalArgumentException("Item and item cost are required");
+        }
+        Country partnerCountry = countryDirectory.findByName(comparisonQueryDTO.partnerCountry())
+                .orElseThrow(() -> new IllegalArgumentException("Country not found"));
+        String canonicalItem = itemNameNormalizer.canonical(comparisonQueryDTO.item());
+
+        // The world and developing sentinels are partners only, and nobody reports tariffs on itself
+        int worldNumber = countryDirectory.world().getCountryNumber();
+        int developingNumber = countryDirectory.developing().getCountryNumber();
+        List<Country> reporters = countryDirectory.findAll().stream()
+                .filter((country) -> country.getCountryNumber() != worldNumber
+                        && country.getCountryNumber() != developingNumber
+                        && country.getCountryNumber() != partnerCountry.getCountryNumber())
+                .toList();
+
+        log.info("Comparing {} for partner {} across {} reporters", canonicalItem, partnerCountry.getCountryName(),
+                reporters.size());
+        ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("tariff-compare-", 0).factory());
+        ExecutorCompletionService<TariffComparisonResultDTO> completion = new ExecutorCompletionService<>(executor);
+        reporters.forEach((reporter) -> completion.submit(
+                () -> compareReporter(reporter, partnerCountry, canonicalItem, comparisonQueryDTO)));
+        executor.shutdown();
+
+        return Stream.generate(() -> nextComparison(completion))
+                .limit(reporters.size())
+                .onClose(executor::shutdownNow);
+    }
+
+    private TariffComparisonResultDTO nextComparison(ExecutorCompletionService<TariffComparisonResultDTO> completion) {
+        try {
+            return completion.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for comparison results");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /*
+     * Prices the item for one reporter of a comparison. A reporter the upstream
+     * API has no item or tariffs for, or that only has the "No trade agreement
+     * found" placeholder, is reported as having no data.
+     */
+    private TariffComparisonResultDTO compareReporter(Country reportingCountry, Country partnerCountry,
+            String canonicalItem, TariffComparisonQueryDTO comparisonQueryDTO) {
+        String reporterName = reportingCountry.getCountryName();
+        try {
+            Item item;
+            boolean stored;
+            compareDbPermits.acquire();
+            try {
+                item = itemRepo.findByItemName(itemName(reportingCountry, canonicalItem)).orElse(null);
+                stored = item != null
+                        && (tariffRateIndex.lookup(reportingCountry.getCountryNumber(),
+                                partnerCountry.getCountryNumber(), item.getItemCode()) != null
+                            || tariffRepo.existsByReportingCountryAndItem(reportingCountry, item));
+            } finally {
+                compareDbPermits.release();
+            }
+            // The two permits are never held together, so neither budget can wait on the other
+            if (!stored) {
+                comparePermits.acquire();
+                try {
+                    item = resolveItem(reportingCountry, canonicalItem);
+                    ensureTariffsStored(reportingCountry, item);
+                } finally {
+                    comparePermits.release();
+                }
+            }
+
+            IndexedRate tariff;
+            compareDbPermits.acquire();
+            try {
+                tariff = resolveFreshTariff(reportingCountry, partnerCountry, item, false);
+            } finally {
+                compareDbPermits.release();
+            }
+            if (tariff.percentageRate() < 0) {
+                return TariffComparisonResultDTO.noData(reporterName, tariff.description());
+            }
+            TariffCalculationQueryDTO query = new TariffCalculationQueryDTO(reporterName,
+                    partnerCountry.getCountryName(), comparisonQueryDTO.item(), comparisonQueryDTO.itemCost());
+            return TariffComparisonResultDTO.success(reporterName, toResponse(query, reportingCountry, item, tariff));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return TariffComparisonResultDTO.failure(reporterName,
+                    new IllegalStateException("Interrupted while waiting for compare capacity"));
+        } catch (RuntimeException e) {
+            log.debug("Comparison for {} failed: {}", reporterName, e.getMessage());
+            return TariffComparisonResultDTO.failure(reporterName, e);
+        }
+    }
+
+    /*
+     * Resolves the item of one batch group and makes sure its tariffs are indexed,
+     * holding one permit of the shared batch budget so a large batch cannot take
+     * every database connection or flood the upstream API.
+     */
+    private void resolveGroup(BatchGroup group) {
+        try {
+            batchPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            group.failure = new IllegalStateException("Interrupted while waiting for batch capacity");
+            return;
+        }
+        try {
+            group.item = resolveItem(group.reportingCountry, group.itemName);
+            int reportingNumber = group.reportingCountry.getCountryNumber();
+            List<Country> unindexed = group.partners.stream()
+                    .filter((partner) -> tariffRateIndex.lookup(reportingNumber, partner.getCountryNumber(),
+                            group.item.getItemCode()) == null)
+                    .toList();
+            if (!unindexed.isEmpty()) {
+                ensureTariffsStored(group.reportingCountry, group.item);
+                indexPartners(group.reportingCountry, group.item, unindexed);
+            }
+        } catch (RuntimeException e) {
+            group.failure = e;
+        } finally {
+            batchPermits.release();
+        }
+    }
+
+    /*
+     * Indexes the applicable rate of every partner with one query for the group,
+     * picking rows the same way resolveTariff does: the partner's own rate, else
+     * the developing rate for developing partners, else the world rate. Partners
+     * with none of these are left to resolveTariff, which saves the placeholder.
+     */
+    private void indexPartners(Country reportingCountry, Item item, List<Country> partners) {
+        int reportingNumber = reportingCountry.getCountryNumber();
+        int itemCode = item.getItemCode();
+        int worldNumber = countryDirectory.world().getCountryNumber();
+        int developingNumber = countryDirectory.developing().getCountryNumber();
+
+        Set<Integer> partnerNumbers = new HashSet<>();
+        partners.forEach((partner) -> partnerNumbers.add(partner.getCountryNumber()));
+        partnerNumbers.add(worldNumber);
+        partnerNumbers.add(developingNumber);
+
+        // Newest first, so the first row seen per partner is the one that applies
+        Map<Integer, TariffRateView> newest = new HashMap<>();
+        tariffRepo.findApplicableForPartners(reportingNumber, itemCode, partnerNumbers)
+                .forEach((view) -> newest.putIfAbsent(view.partnerCountryNumber(), view));
+
+        for (Country partner : partners) {
+            int partnerNumber = partner.getCountryNumber();
+            TariffRateView view = newest.get(partnerNumber);
+            if (view == null && Boolean.TRUE.equals(partner.getIsDeveloping())) {
+                view = newest.get(developingNumber);
+            }
+            if (view == null) {
+                view = newest.get(worldNumber);
+            }
+            if (view == null) {
+                continue;
+            }
+            tariffRateIndex.put(reportingNumber, itemCode, view);
+            if (view.partnerCountryNumber() != partnerNumber) {
+                tariffRateIndex.alias(reportingNumber, partnerNumber, itemCode, view.partnerCountryNumber());
+            }
         }
+    }
+
+    /*
+     * Finds the item for the reporting country, querying the API when it is not
+     * stored yet. Reporters in customValid have their own item codes, everyone else
+     * shares the general (WTO) one.
+     *
+     * @Param canonicalItem The item name as produced by ItemNameNormalizer.canonical
+     */
+    private Item resolveItem(Country reportingCountry, String canonicalItem) {
+        boolean custom = customValid.contains(reportingCountry.getCountryNumber());
+        String itemName = itemName(reportingCountry, canonicalItem);
+
+        // Concurrent misses for the same item share one API call and one insert
+        return itemRepo.findByItemName(itemName)
+                .orElseGet(() -> itemFlights.execute(itemName, () -> itemRepo.findByItemName(itemName)
+                        .orElseGet(() -> custom
+                                ? loadItemFromApi(canonicalItem, Integer.toString(reportingCountry.getCountryNumber()))
+                                : loadItemFromApi(canonicalItem, "wto"))));
+    }
 
-        log.info("No problem with Item Query");
-        // Needs to be final here because being used in a very interesting lambda later
-        // down the line
-        final List<Tariff> tariffList = tariffRepo.findByReportingCountryAndItem(
-                reportingCountry,
-                item);
+    private String itemName(Country reportingCountry, String canonicalItem) {
+        return customValid.contains(reportingCountry.getCountryNumber())
+                ? itemNameNormalizer.customItemName(canonicalItem, reportingCountry.getCountryNumber())
+                : itemNameNormalizer.generalItemName(canonicalItem);
+    }
 
-        if (tariffList.isEmpty()) {
+    /*
+     * Makes sure the reporter has tariffs stored for the item, calling the API
+     * when there are none at all.
+     */
+    private void ensureTariffsStored(Country reportingCountry, Item item) {
+        if (tariffRepo.existsByReportingCountryAndItem(reportingCountry, item)) {
+            return;
+        }
+        // Concurrent misses for the same reporter and item share one API call and one persistence pass
+        tariffFlights.execute(reportingCountry.getCountryNumber() + ":" + item.getItemCode(), () -> {
+            if (tariffRepo.existsByReportingCountryAndItem(reportingCountry, item)) {
+                return List.of();
+            }
             log.info("Attempting to load....");
-            tariffList.addAll(loadTariffFromApi(reportingCountry, item));
+            return loadTariffFromApi(reportingCountry, item);
+        });
+    }
+
+    /*
+     * resolveTariff with a freshness policy on top, driven by the age of the
+     * row's localDate:
+     * - younger than the soft TTL: served as is
+     * - past the soft TTL: served as is, and a background refresh from Moach is
+     *   queued (once per reporter and item, on a bounded executor)
+     * - past the hard TTL: the request waits for the refresh and is answered with
+     *   the new row. If the refresh fails, the old row is served rather than failing.
+     *   Without waitOnHardTtl it is handled like the soft TTL instead, for callers
+     *   that must not reach the upstream API on their own thread.
+     * A reporter and item are refreshed at most once a day, so a row Moach no
+     * longer reports is kept and served until it is deleted.
+     */
+    private IndexedRate resolveFreshTariff(Country reportingCountry, Country partnerCountry, Item item,
+            boolean waitOnHardTtl) {
+        IndexedRate tariff = resolveTariff(reportingCountry, partnerCountry, item);
+        if (!freshness.isEnabled()) {
+            return tariff;
         }
-        
-        log.info(tariffList.toString());
-
-        Tariff tariff = tariffList.stream()
-                .filter((tariffs) -> tariffs.getPartnerCountry().getCountryNumber() == (partnerCountry.getCountryNumber()))
-                .sorted((a, b) -> b.getLocalDate().compareTo(a.getLocalDate()))
-                .findFirst()
-                // Here, we check to return either developing tariff or non-developed tariff
-                .orElseGet(() -> {
-                    Country developing = countryRepo.findByCountryName("developing")
-                            .orElseThrow(() -> {
-                                log.info("Developing not found");
-                                return new NoSuchElementException("Developing not found");
-                            });
-                    List<Tariff> developingTariff = tariffRepo
-                            .findByReportingCountryAndPartnerCountryAndItem(developing, reportingCountry, item);
-                    Country world = countryRepo.findByCountryName("world")
-                            .orElseThrow(() -> {
-                                log.info("World not found");
-                                return new NoSuchElementException("World not found");
-                            });
-
-                    if (!developingTariff.isEmpty() && partnerCountry.getIsDeveloping()) {
-                        return tariffList.stream()
-                                .filter((currTariff) -> currTariff.getPartnerCountry().equals(developing))
-                                .findFirst()
-                                .orElseGet(() -> {
-                                    log.info("Well for Developing");
-                                    return tariffRepo.save(
-                                            new Tariff(reportingCountry, developing, item, -1.0,
-                                                    "No trade agreement found", LocalDate.now()));
-                                });
+        LocalDate today = LocalDate.now();
+        long age = ChronoUnit.DAYS.between(tariff.localDate(), today);
+        if (age < freshness.getSoftTtlDays()) {
+            return tariff;
+        }
+        String key = reportingCountry.getCountryNumber() + ":" + item.getItemCode();
+        if (today.equals(lastRefreshed.get(key))) {
+            return tariff;
+        }
+
+        if (waitOnHardTtl && age >= freshness.getHardTtlDays()) {
+            staleBlocked.increment();
+            try {
+                refreshTariffs(reportingCountry, item);
+            } catch (RuntimeException e) {
+                log.info("Refresh of {} failed, serving the stored tariff: {}", key, e.getMessage());
+                return tariff;
+            }
+            return resolveTariff(reportingCountry, partnerCountry, item);
+        }
+
+        staleServed.increment();
+        if (refreshesQueued.add(key)) {
+            try {
+                refreshExecutor.execute(() -> {
+                    try {
+                        refreshTariffs(reportingCountry, item);
+                    } catch (RuntimeException e) {
+                        log.info("Background refresh of {} failed: {}", key, e.getMessage());
+                    } finally {
+                        refreshesQueued.remove(key);
                     }
-                    return tariffList.stream()
-                            .filter((currTariff) -> currTariff.getPartnerCountry().equals(world))
-                            .findFirst()
-                            .orElseGet(() -> {
-                                log.info("Well for world");
-                                return tariffRepo
-                                        .save(new Tariff(reportingCountry, world, item, -1.0,
-                                                "No trade agreement found", LocalDate.now()));
-                            });
                 });
+            } catch (RejectedExecutionException e) {
+                refreshesQueued.remove(key);
+                refreshesDropped.increment();
+            }
+        }
+        return tariff;
+    }
 
-        double percentage = tariff.getPercentageRate();
+    /*
+     * Reloads every tariff of the reporter for the item from Moach. Shares its
+     * flight with ensureTariffsStored, so a refresh and a first load of the same
+     * pair never run side by side. The new rows are dated today and replace the
+     * old ones in the rate index.
+     */
+    private void refreshTariffs(Country reportingCountry, Item item) {
+        String key = reportingCountry.getCountryNumber() + ":" + item.getItemCode();
+        tariffFlights.execute(key, () -> {
+            LocalDate today = LocalDate.now();
+            // Only today's marks matter, older ones are dropped so the map stays small
+            lastRefreshed.values().removeIf((day) -> !day.equals(today));
+            if (today.equals(lastRefreshed.put(key, today))) {
+                return List.of();
+            }
+            log.info("Refreshing tariffs of {}", key);
+            try {
+                return loadTariffFromApi(reportingCountry, item);
+            } catch (ApiFailureException e) {
+                // Moach has nothing for the pair, no point asking again today
+                throw e;
+            } catch (RuntimeException e) {
+                lastRefreshed.remove(key, today);
+                throw e;
+            }
+        });
+    }
+
+    /*
+     * Picks the tariff that applies to the partner: its own rate, else the
+     * developing rate for developing partners, else the world rate. If the
+     * reporter has none of these a "No trade agreement found" placeholder is saved.
+     * If a concurrent request saved it first (or the world row was ingested in the
+     * meantime), the placeholder hits uk_tariff_natural_key and the stored row is
+     * read back instead.
+     */
+    private IndexedRate resolveTariff(Country reportingCountry, Country partnerCountry, Item item) {
+        final int reportingNumber = reportingCountry.getCountryNumber();
+        final int partnerNumber = partnerCountry.getCountryNumber();
+        final int itemCode = item.getItemCode();
+
+        // Pairs that have been resolved before are answered from the index without any SQL
+        IndexedRate tariff = tariffRateIndex.lookup(reportingNumber, partnerNumber, itemCode);
+        if (tariff != null) {
+            rateIndexHits.increment();
+            return tariff;
+        }
+        rateIndexMisses.increment();
+
+        Country world = countryDirectory.world();
+        int developingNumber = Boolean.TRUE.equals(partnerCountry.getIsDeveloping())
+                ? countryDirectory.developing().getCountryNumber()
+                : partnerNumber;
+
+        // One indexed query for the newest applicable row instead of loading and sorting them all
+        Optional<TariffRateView> latest = tariffRepo.findLatestApplicable(reportingNumber, itemCode, partnerNumber,
+                developingNumber, world.getCountryNumber());
+        if (latest.isEmpty()) {
+            ensureTariffsStored(reportingCountry, item);
+            latest = tariffRepo.findLatestApplicable(reportingNumber, itemCode, partnerNumber, developingNumber,
+                    world.getCountryNumber());
+        }
+
+        if (latest.isEmpty()) {
+            log.info("Well for world");
+            try {
+                tariff = IndexedRate.of(tariffRepo.save(new Tariff(reportingCountry, world, item, -1.0,
+                        "No trade agreement found", LocalDate.now())));
+                tariffRateIndex.alias(reportingNumber, partnerNumber, itemCode, world.getCountryNumber());
+                return tariff;
+            } catch (DataIntegrityViolationException e) {
+                latest = tariffRepo.findLatestApplicable(reportingNumber, itemCode, partnerNumber, developingNumber,
+                        world.getCountryNumber());
+                if (latest.isEmpty()) {
+                    throw e;
+                }
+            }
+        }
+
+        TariffRateView view = latest.get();
+        tariffRateIndex.put(reportingNumber, itemCode, view);
+        if (view.partnerCountryNumber() != partnerNumber) {
+            tariffRateIndex.alias(reportingNumber, partnerNumber, itemCode, view.partnerCountryNumber());
+        }
+        return IndexedRate.of(view);
+    }
+
+    private TariffResponseDTO toResponse(TariffCalculationQueryDTO tariffQueryDTO, Country reportingCountry, Item item,
+            IndexedRate tariff) {
+        double percentage = tariff.percentageRate();
         double tariffAmount = percentage * tariffQueryDTO.itemCost() / 100.0;
         double itemCostWithTariff = tariffAmount + tariffQueryDTO.itemCost();
         return new TariffResponseDTO(reportingCountry.getCountryName(), tariffQueryDTO.partnerCountry(),
                 item.getItemName().replaceAll("[0-9]+", "").replaceAll("general", ""), percentage, tariffAmount,
-                itemCostWithTariff, tariff.getId(), tariff.getDescription());
+                itemCostWithTariff, tariff.tariffId(), tariff.description());
+    }
+
+    /*
+     * Queries of a batch sharing one reporter and item. Filled in by resolveGroup.
+     */
+    private static final class BatchGroup {
+        private final Country reportingCountry;
+        private final String itemName;
+        private final List<Country> partners = new ArrayList<>();
+        private volatile Item item;
+        private volatile RuntimeException failure;
+
+        private BatchGroup(Country reportingCountry, String itemName) {
+            this.reportingCountry = reportingCountry;
+            this.itemName = itemName;
+        }
+    }
+
+    public List<Integer> getCustomItemReporters() {
+        return customValid;
+    }
+
+    /*
+     * Used by the warm-up crawler: resolves the item for the reporter (calling the
+     * API if needed) and makes sure its tariffs are stored, exactly like the first
+     * real request for it would.
+     *
+     * @Param item The item name as a user would type it
+     *
+     * @return the stored item
+     */
+    public Item preloadItem(Country reportingCountry, String item) {
+        Item resolved = resolveItem(reportingCountry, itemNameNormalizer.canonical(item));
+        ensureTariffsStored(reportingCountry, resolved);
+        return resolved;
+    }
+
+    /*
+     * Used by the warm-up crawler for items that are already stored, e.g. known HS codes.
+     */
+    public void preloadTariffs(Country reportingCountry, Item item) {
+        ensureTariffsStored(reportingCountry, item);
     }
 
     public GeneralTariffDTO getTariffById(Integer tariffId) {
@@ -1,12 +1,28 @@
 package com.tariff.calculation.tariffCalc.service;
 
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.tariff.calculation.tariffCalc.country.Country;
+import com.tariff.calculation.tariffCalc.dto.BatchTariffResultDTO;
 import com.tariff.calculation.tariffCalc.dto.GeneralTariffDTO;
 import com.tariff.calculation.tariffCalc.dto.TariffCalculationQueryDTO;
+import com.tariff.calculation.tariffCalc.dto.TariffComparisonQueryDTO;
+import com.tariff.calculation.tariffCalc.dto.TariffComparisonResultDTO;
 import com.tariff.calculation.tariffCalc.dto.TariffResponseDTO;
+import com.tariff.calculation.tariffCalc.item.Item;
 
 public interface TariffCalculationService {
 
     // Getters 
     public TariffResponseDTO getCurrentTariffDetails(TariffCalculationQueryDTO tariffQueryDTO);
+    public List<BatchTariffResultDTO> getCurrentTariffDetailsBatch(List<TariffCalculationQueryDTO> tariffQueryDTOs);
     public GeneralTariffDTO getTariffById(Integer tariffid); 
+    // Results come in completion order, the stream must be closed to stop pending reporters
+    public Stream<TariffComparisonResultDTO> getCurrentTariffComparison(TariffComparisonQueryDTO comparisonQueryDTO);
+
+    // Warm-up
+    public List<Integer> getCustomItemReporters();
+    public Item preloadItem(Country reportingCountry, String item);
+    public void preloadTariffs(Country reportingCountry, Item item);
 }
\ No newline at end of file
@@ -0,0 +1,203 @@
+package com.tariff.calculation.tariffCalc.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.tariff.calculation.tariffCalc.dto.TariffExportFilterDTO;
+
+/*
+ * Streams the tariff table out as NDJSON or CSV.
+ *
+ * Rows are read with plain JDBC straight from the tariff table (country numbers
+ * and item code are the foreign key columns themselves, so no Country or Item is
+ * ever loaded) through a server-side cursor: inside a read-only transaction with
+ * a fixed fetch size, PostgreSQL hands the rows over fetchSize at a time instead
+ * of materialising the whole result. Each row is written to the output as soon as
+ * it is read, so memory stays flat however many rows match.
+ *
+ * Rows come in table order, there is no ORDER BY so the database never has to sort.
+ *
+ * The cursor keeps its connection for the whole export. Exports running longer
+ * than spring.datasource.hikari.leak-detection-threshold are therefore logged by
+ * Hikari as an "Apparent connection leak", followed by "unleaked" once the export
+ * completes. That warning is expected for large exports and only logged: the
+ * connection is not reclaimed.
+ */
+@Service
+public class TariffExportImpl implements TariffExportService {
+
+    private static final String SELECT = "SELECT id, reporting_country_id, partner_country_id, itemcode,"
+            + " percentageRate, description, localDate FROM Tariff";
+    private static final String CSV_HEADER = "id,reportingCountry,partnerCountry,itemCode,percentageRate,description,localDate\n";
+    // No separator between root values, each row ends with its own newline instead
+    private static final JsonFactory JSON_FACTORY = new JsonFactoryBuilder().rootValueSeparator((String) null).build();
+
+    private final Logger log = LoggerFactory.getLogger(TariffExportImpl.class);
+
+    private final JdbcTemplate cursorTemplate;
+
+    public TariffExportImpl(
+            JdbcTemplate jdbcTemplate,
+            @Value("${tariff.export.fetch-size:1000}") int fetchSize) {
+        // Own template so the fetch size does not leak into the other JDBC users
+        this.cursorTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.cursorTemplate.setFetchSize(fetchSize);
+    }
+
+    /*
+     * @Param out The response stream. Flushed, not closed
+     *
+     * @return the number of rows written
+     */
+    @Transactional(readOnly = true)
+    public long export(TariffExportFilterDTO filter, Format format, OutputStream out) throws IOException {
+        List<Object> args = new ArrayList<>();
+        String sql = query(filter, args);
+        long[] rows = new long[1];
+
+        try {
+            if (format == Format.CSV) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+                writer.write(CSV_HEADER);
+                cursorTemplate.query(sql, (RowCallbackHandler) (resultSet) -> {
+                    writeCsv(writer, resultSet);
+                    rows[0]++;
+                }, args.toArray());
+                writer.flush();
+            } else {
+                JsonGenerator generator = JSON_FACTORY.createGenerator(out);
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                cursorTemplate.query(sql, (RowCallbackHandler) (resultSet) -> {
+                    writeJson(generator, resultSet);
+                    rows[0]++;
+                }, args.toArray());
+                generator.flush();
+            }
+        } catch (UncheckedIOException e) {
+            // Usually the client went away, the cursor is closed with the transaction
+            log.info("Tariff export aborted after {} rows: {}", rows[0], e.getCause().getMessage());
+            throw e.getCause();
+        }
+        log.info("Exported {} tariff rows as {}", rows[0], format);
+        return rows[0];
+    }
+
+    private static String query(TariffExportFilterDTO filter, List<Object> args) {
+        StringBuilder sql = new StringBuilder(SELECT);
+        List<String> conditions = new ArrayList<>();
+        if (filter.reportingCountry() != null) {
+            conditions.add("reporting_country_id = ?");
+            args.add(filter.reportingCountry());
+        }
+        if (filter.partnerCountry() != null) {
+            conditions.add("partner_country_id = ?");
+            args.add(filter.partnerCountry());
+        }
+        if (filter.itemCode() != null) {
+            conditions.add("itemcode = ?");
+            args.add(filter.itemCode());
+        }
+        if (filter.from() != null) {
+            conditions.add("localDate >= ?");
+            args.add(filter.from());
+        }
+        if (filter.to() != null) {
+            conditions.add("localDate <= ?");
+            args.add(filter.to());
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        return sql.toString();
+    }
+
+    private static void writeJson(JsonGenerator generator, ResultSet resultSet) throws SQLException {
+        try {
+            generator.writeStartObject();
+            generator.writeNumberField("id", resultSet.getInt(1));
+            generator.writeNumberField("reportingCountry", resultSet.getInt(2));
+            generator.writeNumberField("partnerCountry", resultSet.getInt(3));
+            generator.writeNumberField("itemCode", resultSet.getInt(4));
+            double rate = resultSet.getDouble(5);
+            if (resultSet.wasNull()) {
+                generator.writeNullField("percentageRate");
+            } else {
+                generator.writeNumberField("percentageRate", rate);
+            }
+            generator.writeStringField("description", resultSet.getString(6));
+            Date localDate = resultSet.getDate(7);
+            generator.writeStringField("localDate", localDate == null ? null : localDate.toLocalDate().toString());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeCsv(Writer writer, ResultSet resultSet) throws SQLException {
+        try {
+            writer.write(Integer.toString(resultSet.getInt(1)));
+            writer.write(',');
+            writer.write(Integer.toString(resultSet.getInt(2)));
+            writer.write(',');
+            writer.write(Integer.toString(resultSet.getInt(3)));
+            writer.write(',');
+            writer.write(Integer.toString(resultSet.getInt(4)));
+            writer.write(',');
+            double rate = resultSet.getDouble(5);
+            if (!resultSet.wasNull()) {
+                writer.write(Double.toString(rate));
+            }
+            writer.write(',');
+            writeCsvField(writer, resultSet.getString(6));
+            writer.write(',');
+            Date localDate = resultSet.getDate(7);
+            if (localDate != null) {
+                writer.write(localDate.toLocalDate().toString());
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // RFC 4180: quote fields holding a separator, quote or line break, doubling inner quotes
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,16 @@
+package com.tariff.calculation.tariffCalc.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.tariff.calculation.tariffCalc.dto.TariffExportFilterDTO;
+
+public interface TariffExportService {
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    // Writes every tariff matching the filter to out, returns how many rows were written
+    public long export(TariffExportFilterDTO filter, Format format, OutputStream out) throws IOException;
+}
@@ -0,0 +1,490 @@
+package com.tariff.calculation.tariffCalc.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.tariff.calculation.tariffCalc.bulkimport.ImportJob;
+import com.tariff.calculation.tariffCalc.bulkimport.QuarantinedLine;
+import com.tariff.calculation.tariffCalc.bulkimport.QuarantinedLineRepo;
+import com.tariff.calculation.tariffCalc.country.Country;
+import com.tariff.calculation.tariffCalc.country.CountryDirectory;
+import com.tariff.calculation.tariffCalc.dto.ImportJobDTO;
+import com.tariff.calculation.tariffCalc.item.Item;
+import com.tariff.calculation.tariffCalc.item.ItemRepo;
+import com.tariff.calculation.tariffCalc.tariff.Tariff;
+import com.tariff.calculation.tariffCalc.tariff.TariffRateIndex;
+import com.tariff.calculation.tariffCalc.utility.CsvLine;
+
+/*
+ * Bulk import of whole tariff schedule files, one line per tariff:
+ *
+ *   reporter,partner,hsCode,rate,date,description
+ *   840,156,640411,7.5%,2024-01-01,"Section 301, list 4A"
+ *
+ * Countries may be given by number, ISO code or name and are resolved from an
+ * in-memory map. The rate may carry a % sign or be "free", the date may be a
+ * plain year. A first line starting with "reporter" is taken as a header.
+ *
+ * The file is read in chunks of chunk-size lines which are parsed in parallel,
+ * while the import thread loads the parsed chunks in file order. At most two
+ * chunks per parser are in flight, so memory does not depend on the file size.
+ * Lines that cannot be parsed are quarantined with the reason.
+ *
+ * On PostgreSQL each chunk is COPYed into a temporary staging table. At the end
+ * missing items are created ("hs<code>") and the staged rows are merged into
+ * Tariff with one INSERT ... SELECT ... ON CONFLICT upsert on the natural key,
+ * the last line winning when a file repeats a key. Other databases (H2 in tests)
+ * go through TariffIngestionService chunk by chunk instead.
+ *
+ * The whole file is one transaction. The rate index is cleared afterwards, as
+ * it may hold rows the import replaced. Quarantined lines are committed in
+ * their own transactions, so they are kept when the import itself fails.
+ */
+@Service
+public class TariffImportImpl implements TariffImportService {
+
+    private static final int MAX_QUARANTINED = 10_000;
+    private static final int MAX_JOBS_KEPT = 20;
+    private static final int MAX_DESCRIPTION = 255;
+
+    private static final String CREATE_STAGE = "CREATE TEMP TABLE tariff_import_stage ("
+            + "reporting_country_id integer, partner_country_id integer, itemcode integer,"
+            + " percentageRate double precision, description varchar(255), localDate date, line bigint)"
+            + " ON COMMIT DROP";
+    private static final String COPY_STAGE = "COPY tariff_import_stage"
+            + " (reporting_country_id, partner_country_id, itemcode, percentageRate, description, localDate, line)"
+            + " FROM STDIN WITH (FORMAT csv)";
+    private static final String INSERT_ITEMS = "INSERT INTO item (itemCode, itemName)"
+            + " SELECT DISTINCT itemcode, 'hs' || itemcode FROM tariff_import_stage ON CONFLICT DO NOTHING";
+    private static final String MERGE_TARIFFS = "INSERT INTO Tariff"
+            + " (reporting_country_id, partner_country_id, itemcode, percentageRate, description, localDate)"
+            + " SELECT DISTINCT ON (reporting_country_id, partner_country_id, itemcode, localDate)"
+            + " reporting_country_id, partner_country_id, itemcode, percentageRate, description, localDate"
+            + " FROM tariff_import_stage"
+            + " ORDER BY reporting_country_id, partner_country_id, itemcode, localDate, line DESC"
+            + " ON CONFLICT (reporting_country_id, partner_country_id, itemcode, localDate)"
+            + " DO UPDATE SET percentageRate = EXCLUDED.percentageRate, description = EXCLUDED.description";
+
+    private final Logger log = LoggerFactory.getLogger(TariffImportImpl.class);
+
+    private final CountryDirectory countryDirectory;
+    private final ItemRepo itemRepo;
+    private final QuarantinedLineRepo quarantinedLineRepo;
+    private final TariffIngestionService tariffIngestionService;
+    private final TariffRateIndex tariffRateIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate quarantineTransaction;
+    private final int chunkSize;
+    private final int parallelism;
+
+    private final AtomicReference<ImportJob> running = new AtomicReference<>();
+    private final Map<String, ImportJob> jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ImportJob> eldest) {
+            return size() > MAX_JOBS_KEPT;
+        }
+    });
+
+    public TariffImportImpl(
+            CountryDirectory countryDirectory,
+            ItemRepo itemRepo,
+            QuarantinedLineRepo quarantinedLineRepo,
+            TariffIngestionService tariffIngestionService,
+            TariffRateIndex tariffRateIndex,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${tariff.import.chunk-size:10000}") int chunkSize,
+            @Value("${tariff.import.parallelism:0}") int parallelism) {
+        this.countryDirectory = countryDirectory;
+        this.itemRepo = itemRepo;
+        this.quarantinedLineRepo = quarantinedLineRepo;
+        this.tariffIngestionService = tariffIngestionService;
+        this.tariffRateIndex = tariffRateIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.quarantineTransaction = new TransactionTemplate(transactionManager);
+        this.quarantineTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    public Optional<ImportJobDTO> start(Path schedule, String fileName) {
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), fileName);
+        if (!running.compareAndSet(null, job)) {
+            deleteQuietly(schedule);
+            return Optional.empty();
+        }
+        jobs.put(job.getId(), job);
+        Thread.ofVirtual().name("tariff-import").start(() -> run(job, schedule));
+        return Optional.of(job.toDTO());
+    }
+
+    public Optional<ImportJobDTO> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(ImportJob::toDTO);
+    }
+
+    public List<ImportJobDTO> getJobs() {
+        synchronized (jobs) {
+            return jobs.values().stream().map(ImportJob::toDTO).toList();
+        }
+    }
+
+    public List<QuarantinedLine> getQuarantinedLines(String jobId, int limit) {
+        return quarantinedLineRepo.findByJobIdOrderByLineNumber(jobId, PageRequest.of(0, limit));
+    }
+
+    private void run(ImportJob job, Path schedule) {
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult((status) -> importFile(job, schedule));
+            tariffRateIndex.clear();
+            job.finish();
+            log.info("Import {} loaded {} tariffs from {} lines in {} ms, {} quarantined", job.getId(),
+                    job.rowsLoaded().get(), job.linesRead().get(), (System.nanoTime() - start) / 1_000_000,
+                    job.rowsQuarantined().get());
+        } catch (RuntimeException e) {
+            log.warn("Import {} failed", job.getId(), e);
+            job.fail(e.getMessage());
+        } finally {
+            deleteQuietly(schedule);
+            running.set(null);
+        }
+    }
+
+    private void importFile(ImportJob job, Path schedule) {
+        Map<String, Country> countries = countryLookup();
+        Loader loader = isPostgres() ? new CopyLoader(job) : new IngestionLoader(job);
+        ExecutorService parsers = Executors.newFixedThreadPool(parallelism);
+        try (BufferedReader reader = Files.newBufferedReader(schedule, StandardCharsets.UTF_8)) {
+            Deque<Future<ParsedChunk>> pending = new ArrayDeque<>();
+            List<String> lines = new ArrayList<>(chunkSize);
+            long firstLine = 1;
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                lines.add(line);
+                if (lines.size() == chunkSize) {
+                    pending.add(submit(parsers, job, firstLine, lines, countries));
+                    job.linesRead().set(lineNumber);
+                    firstLine = lineNumber + 1;
+                    lines = new ArrayList<>(chunkSize);
+                    // Back pressure: never more than two chunks per parser waiting to be loaded
+                    if (pending.size() >= parallelism * 2) {
+                        loader.load(await(pending.removeFirst()));
+                    }
+                }
+            }
+            if (!lines.isEmpty()) {
+                pending.add(submit(parsers, job, firstLine, lines, countries));
+            }
+            job.linesRead().set(lineNumber);
+            while (!pending.isEmpty()) {
+                loader.load(await(pending.removeFirst()));
+            }
+            loader.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            parsers.shutdownNow();
+        }
+    }
+
+    private Future<ParsedChunk> submit(ExecutorService parsers, ImportJob job, long firstLine, List<String> lines,
+            Map<String, Country> countries) {
+        return parsers.submit(() -> parse(job.getId(), firstLine, lines, countries));
+    }
+
+    private ParsedChunk await(Future<ParsedChunk> chunk) {
+        try {
+            return chunk.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while parsing", e);
+        }
+    }
+
+    // Number, ISO code and lower case name of every country
+    private Map<String, Country> countryLookup() {
+        Map<String, Country> lookup = new HashMap<>();
+        for (Country country : countryDirectory.findAll()) {
+            lookup.put(Integer.toString(country.getCountryNumber()), country);
+            if (country.getCountryCode() != null) {
+                lookup.putIfAbsent(country.getCountryCode().toLowerCase(Locale.ROOT), country);
+            }
+            if (country.getCountryName() != null) {
+                lookup.putIfAbsent(country.getCountryName().toLowerCase(Locale.ROOT), country);
+            }
+        }
+        return lookup;
+    }
+
+    /*
+     * Parses one chunk. Runs on the parser pool, so it only reads the immutable
+     * country map and builds its own result.
+     */
+    static ParsedChunk parse(String jobId, long firstLine, List<String> lines, Map<String, Country> countries) {
+        ParsedChunk chunk = new ParsedChunk(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            long lineNumber = firstLine + i;
+            if (line.isBlank() || (lineNumber == 1 && line.trim().toLowerCase(Locale.ROOT).startsWith("reporter"))) {
+                continue;
+            }
+            try {
+                List<String> fields = CsvLine.split(line);
+                if (fields.size() < 5) {
+                    throw new IllegalArgumentException("Expected reporter,partner,hsCode,rate,date[,description]");
+                }
+                Country reporter = country(fields.get(0), countries, "reporter");
+                Country partner = country(fields.get(1), countries, "partner");
+                int itemCode = Integer.parseInt(fields.get(2).trim().replace(".", ""));
+                if (itemCode <= 0) {
+                    throw new IllegalArgumentException("Invalid HS code " + fields.get(2));
+                }
+                double rate = rate(fields.get(3));
+                LocalDate date = date(fields.get(4));
+                String description = fields.size() > 5 && !fields.get(5).isBlank() ? fields.get(5).trim() : "Imported";
+                if (description.length() > MAX_DESCRIPTION) {
+                    description = description.substring(0, MAX_DESCRIPTION);
+                }
+                chunk.add(reporter, partner, itemCode, rate, date, description, lineNumber);
+            } catch (RuntimeException e) {
+                String reason = e instanceof NumberFormatException ? "Invalid number: " + e.getMessage() : e.getMessage();
+                chunk.rejects.add(new QuarantinedLine(jobId, lineNumber, line, reason));
+            }
+        }
+        return chunk;
+    }
+
+    private static Country country(String field, Map<String, Country> countries, String role) {
+        String key = field.trim().toLowerCase(Locale.ROOT);
+        if (!key.isEmpty() && key.chars().allMatch(Character::isDigit)) {
+            // "036" and "36" are the same country
+            key = Integer.toString(Integer.parseInt(key));
+        }
+        Country country = countries.get(key);
+        if (country == null) {
+            throw new IllegalArgumentException("Unknown " + role + " " + field.trim());
+        }
+        return country;
+    }
+
+    private static double rate(String field) {
+        String value = field.trim();
+        if (value.equalsIgnoreCase("free")) {
+            return 0;
+        }
+        if (value.endsWith("%")) {
+            value = value.substring(0, value.length() - 1).trim();
+        }
+        double rate = Double.parseDouble(value);
+        if (rate < 0 || Double.isNaN(rate) || Double.isInfinite(rate)) {
+            throw new IllegalArgumentException("Invalid rate " + field.trim());
+        }
+        return rate;
+    }
+
+    private static LocalDate date(String field) {
+        String value = field.trim();
+        if (value.length() == 4) {
+            return LocalDate.of(Integer.parseInt(value), 1, 1);
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid date " + value);
+        }
+    }
+
+    private boolean isPostgres() {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) (connection) ->
+                "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName()));
+    }
+
+    private void deleteQuietly(Path schedule) {
+        try {
+            Files.deleteIfExists(schedule);
+        } catch (IOException e) {
+            log.info("Could not delete {}: {}", schedule, e.getMessage());
+        }
+    }
+
+    /*
+     * Parsed rows of one chunk as parallel primitive arrays, plus its rejects.
+     */
+    static final class ParsedChunk {
+        private final Country[] reporters;
+        private final Country[] partners;
+        private final int[] itemCodes;
+        private final double[] rates;
+        private final LocalDate[] dates;
+        private final String[] descriptions;
+        private final long[] lineNumbers;
+        private final List<QuarantinedLine> rejects = new ArrayList<>();
+        private int size;
+
+        private ParsedChunk(int capacity) {
+            reporters = new Country[capacity];
+            partners = new Country[capacity];
+            itemCodes = new int[capacity];
+            rates = new double[capacity];
+            dates = new LocalDate[capacity];
+            descriptions = new String[capacity];
+            lineNumbers = new long[capacity];
+        }
+
+        private void add(Country reporter, Country partner, int itemCode, double rate, LocalDate date,
+                String description, long lineNumber) {
+            reporters[size] = reporter;
+            partners[size] = partner;
+            itemCodes[size] = itemCode;
+            rates[size] = rate;
+            dates[size] = date;
+            descriptions[size] = description;
+            lineNumbers[size] = lineNumber;
+            size++;
+        }
+
+        // Rows in COPY csv format, descriptions always quoted
+        private String toCopyCsv() {
+            StringBuilder csv = new StringBuilder(size * 64);
+            for (int i = 0; i < size; i++) {
+                csv.append(reporters[i].getCountryNumber()).append(',')
+                        .append(partners[i].getCountryNumber()).append(',')
+                        .append(itemCodes[i]).append(',')
+                        .append(rates[i]).append(',')
+                        .append('"').append(descriptions[i].replace("\"", "\"\"")).append('"').append(',')
+                        .append(dates[i]).append(',')
+                        .append(lineNumbers[i]).append('\n');
+            }
+            return csv.toString();
+        }
+    }
+
+    private abstract class Loader {
+        protected final ImportJob job;
+
+        private Loader(ImportJob job) {
+            this.job = job;
+        }
+
+        void load(ParsedChunk chunk) {
+            job.rowsParsed().addAndGet(chunk.size);
+            if (!chunk.rejects.isEmpty()) {
+                long before = job.rowsQuarantined().getAndAdd(chunk.rejects.size());
+                // Everything is counted, only the first MAX_QUARANTINED lines are kept
+                if (before < MAX_QUARANTINED) {
+                    List<QuarantinedLine> kept = chunk.rejects.subList(0,
+                            (int) Math.min(chunk.rejects.size(), MAX_QUARANTINED - before));
+                    quarantineTransaction.executeWithoutResult((status) -> quarantinedLineRepo.saveAll(kept));
+                }
+            }
+            if (chunk.size > 0) {
+                write(chunk);
+            }
+        }
+
+        abstract void write(ParsedChunk chunk);
+
+        abstract void finish();
+    }
+
+    // PostgreSQL: COPY into a staging table, merge once at the end
+    private final class CopyLoader extends Loader {
+
+        private CopyLoader(ImportJob job) {
+            super(job);
+            jdbcTemplate.execute(CREATE_STAGE);
+        }
+
+        void write(ParsedChunk chunk) {
+            jdbcTemplate.execute((ConnectionCallback<Long>) (connection) -> {
+                try {
+                    return connection.unwrap(PGConnection.class).getCopyAPI()
+                            .copyIn(COPY_STAGE, new StringReader(chunk.toCopyCsv()));
+                } catch (IOException e) {
+                    throw new SQLException("COPY into staging table failed", e);
+                }
+            });
+        }
+
+        void finish() {
+            job.itemsCreated().set(jdbcTemplate.update(INSERT_ITEMS));
+            job.rowsLoaded().set(jdbcTemplate.update(MERGE_TARIFFS));
+        }
+    }
+
+    // Other databases: batched writes through the ingestion service, chunk by chunk
+    private final class IngestionLoader extends Loader {
+        private final Set<Integer> knownItems = new HashSet<>();
+
+        private IngestionLoader(ImportJob job) {
+            super(job);
+            itemRepo.findAll().forEach((item) -> knownItems.add(item.getItemCode()));
+        }
+
+        void write(ParsedChunk chunk) {
+            List<Item> created = new ArrayList<>();
+            for (int i = 0; i < chunk.size; i++) {
+                if (knownItems.add(chunk.itemCodes[i])) {
+                    created.add(new Item(chunk.itemCodes[i], "hs" + chunk.itemCodes[i], new ArrayList<>()));
+                }
+            }
+            if (!created.isEmpty()) {
+                itemRepo.saveAll(created);
+                job.itemsCreated().addAndGet(created.size());
+            }
+            List<Tariff> tariffs = new ArrayList<>(chunk.size);
+            for (int i = 0; i < chunk.size; i++) {
+                tariffs.add(new Tariff(chunk.reporters[i], chunk.partners[i],
+                        itemRepo.getReferenceById(chunk.itemCodes[i]), chunk.rates[i], chunk.descriptions[i],
+                        chunk.dates[i]));
+            }
+            job.rowsLoaded().addAndGet(tariffIngestionService.ingest(tariffs).size());
+        }
+
+        void finish() {
+        }
+    }
+}
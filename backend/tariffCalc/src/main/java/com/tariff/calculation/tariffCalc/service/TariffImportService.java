@@ -0,0 +1,20 @@
+package com.tariff.calculation.tariffCalc.service;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import com.tariff.calculation.tariffCalc.bulkimport.QuarantinedLine;
+import com.tariff.calculation.tariffCalc.dto.ImportJobDTO;
+
+public interface TariffImportService {
+
+    // Starts importing the schedule in the background, the file is deleted once done. Empty if an import is already running
+    public Optional<ImportJobDTO> start(Path schedule, String fileName);
+
+    public Optional<ImportJobDTO> getJob(String jobId);
+
+    public List<ImportJobDTO> getJobs();
+
+    public List<QuarantinedLine> getQuarantinedLines(String jobId, int limit);
+}
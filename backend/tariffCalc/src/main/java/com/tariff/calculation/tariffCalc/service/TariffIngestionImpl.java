@@ -0,0 +1,173 @@
+package com.tariff.calculation.tariffCalc.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.tariff.calculation.tariffCalc.tariff.Tariff;
+import com.tariff.calculation.tariffCalc.tariff.TariffRateIndex;
+import com.tariff.calculation.tariffCalc.tariff.TariffRepo;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/*
+ * Writes a whole upstream response in one transaction.
+ *
+ * On PostgreSQL the rows go out as multi-row INSERT ... ON CONFLICT upserts on the
+ * natural key (reporter, partner, item, date), batch-size rows per statement, so
+ * re-ingesting the same day's data updates the existing rows instead of adding
+ * duplicates. Tariff ids are IDENTITY generated, which stops Hibernate from
+ * batching, so this goes through JDBC directly and reads the ids back with
+ * RETURNING. Other databases (H2 in tests) fall back to saveAll.
+ *
+ * Since these writes bypass the JPA listener, the rate index is updated here
+ * once the transaction commits.
+ */
+@Service
+public class TariffIngestionImpl implements TariffIngestionService {
+
+    private static final String INSERT_PREFIX = "INSERT INTO Tariff "
+            + "(reporting_country_id, partner_country_id, itemcode, percentageRate, description, localDate) VALUES ";
+    private static final String VALUES_TUPLE = "(?, ?, ?, ?, ?, ?)";
+    private static final String UPSERT_SUFFIX = " ON CONFLICT (reporting_country_id, partner_country_id, itemcode, localDate)"
+            + " DO UPDATE SET percentageRate = EXCLUDED.percentageRate, description = EXCLUDED.description"
+            + " RETURNING id, reporting_country_id, partner_country_id, itemcode, localDate";
+
+    private final Logger log = LoggerFactory.getLogger(TariffIngestionImpl.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TariffRepo tariffRepo;
+    private final TariffRateIndex tariffRateIndex;
+    private final DistributionSummary batchRows;
+    private final int batchSize;
+    private volatile Boolean postgres;
+
+    public TariffIngestionImpl(
+            JdbcTemplate jdbcTemplate,
+            TariffRepo tariffRepo,
+            TariffRateIndex tariffRateIndex,
+            MeterRegistry meterRegistry,
+            @Value("${tariff.ingestion.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tariffRepo = tariffRepo;
+        this.tariffRateIndex = tariffRateIndex;
+        this.batchSize = batchSize;
+        this.batchRows = DistributionSummary.builder("tariff.ingestion.batch.rows")
+                .description("Rows written per ingestion batch")
+                .register(meterRegistry);
+    }
+
+    /*
+     * Upserts the given tariffs and returns them with their database ids filled in.
+     * Rows sharing a natural key are collapsed first (the last one wins), because
+     * one upsert statement cannot touch the same row twice.
+     *
+     * @Param tariffs unsaved Tariff objects, typically one whole upstream response
+     *
+     * @return the de-duplicated tariffs with ids
+     */
+    @Transactional
+    public List<Tariff> ingest(List<Tariff> tariffs) {
+        if (tariffs.isEmpty()) {
+            return tariffs;
+        }
+
+        Map<String, Tariff> unique = new LinkedHashMap<>();
+        tariffs.forEach((tariff) -> unique.put(naturalKey(tariff.getReportingCountry().getCountryNumber(),
+                tariff.getPartnerCountry().getCountryNumber(), tariff.getItem().getItemCode(),
+                tariff.getLocalDate()), tariff));
+        List<Tariff> rows = new ArrayList<>(unique.values());
+
+        if (!isPostgres()) {
+            // The JPA listener indexes these
+            return tariffRepo.saveAll(rows);
+        }
+
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<Tariff> batch = rows.subList(from, Math.min(from + batchSize, rows.size()));
+            int written = upsertBatch(batch);
+            batchRows.record(written);
+            log.info("Ingested batch of {} tariff rows", written);
+        }
+
+        indexAfterCommit(rows);
+        return rows;
+    }
+
+    private int upsertBatch(List<Tariff> batch) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+        Object[] args = new Object[batch.size() * 6];
+        Map<String, Tariff> byKey = new HashMap<>();
+
+        for (int i = 0; i < batch.size(); i++) {
+            Tariff tariff = batch.get(i);
+            sql.append(i == 0 ? "" : ", ").append(VALUES_TUPLE);
+            int offset = i * 6;
+            args[offset] = tariff.getReportingCountry().getCountryNumber();
+            args[offset + 1] = tariff.getPartnerCountry().getCountryNumber();
+            args[offset + 2] = tariff.getItem().getItemCode();
+            args[offset + 3] = tariff.getPercentageRate();
+            args[offset + 4] = tariff.getDescription();
+            args[offset + 5] = tariff.getLocalDate();
+            byKey.put(naturalKey(tariff.getReportingCountry().getCountryNumber(),
+                    tariff.getPartnerCountry().getCountryNumber(), tariff.getItem().getItemCode(),
+                    tariff.getLocalDate()), tariff);
+        }
+        sql.append(UPSERT_SUFFIX);
+
+        int[] written = new int[1];
+        jdbcTemplate.query(sql.toString(), (RowCallbackHandler) (resultSet) -> {
+            Tariff tariff = byKey.get(naturalKey(resultSet.getInt("reporting_country_id"),
+                    resultSet.getInt("partner_country_id"), resultSet.getInt("itemcode"),
+                    resultSet.getObject("localDate", LocalDate.class)));
+            if (tariff != null) {
+                tariff.setId(resultSet.getInt("id"));
+            }
+            written[0]++;
+        }, args);
+        return written[0];
+    }
+
+    private void indexAfterCommit(List<Tariff> rows) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            tariffRateIndex.putAll(rows);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                tariffRateIndex.putAll(rows);
+            }
+        });
+    }
+
+    private boolean isPostgres() {
+        Boolean current = postgres;
+        if (current == null) {
+            current = jdbcTemplate.execute((ConnectionCallback<Boolean>) (connection) ->
+                    "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName()));
+            postgres = current;
+        }
+        return current;
+    }
+
+    private static String naturalKey(int reportingCountryNumber, int partnerCountryNumber, int itemCode,
+            LocalDate localDate) {
+        return reportingCountryNumber + ":" + partnerCountryNumber + ":" + itemCode + ":" + localDate;
+    }
+}
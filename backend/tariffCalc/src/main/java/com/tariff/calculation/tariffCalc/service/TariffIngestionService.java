@@ -0,0 +1,10 @@
+package com.tariff.calculation.tariffCalc.service;
+
+import java.util.List;
+
+import com.tariff.calculation.tariffCalc.tariff.Tariff;
+
+public interface TariffIngestionService {
+    // Writers
+    public List<Tariff> ingest(List<Tariff> tariffs);
+}
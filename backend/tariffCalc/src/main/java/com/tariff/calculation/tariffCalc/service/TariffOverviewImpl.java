@@ -1,61 +1,122 @@
 package com.tariff.calculation.tariffCalc.service;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
 
 import com.tariff.calculation.tariffCalc.country.Country;
-import com.tariff.calculation.tariffCalc.country.CountryRepo;
+import com.tariff.calculation.tariffCalc.country.CountryDirectory;
 import com.tariff.calculation.tariffCalc.dto.GeneralTariffDTO;
 import com.tariff.calculation.tariffCalc.dto.HistoricalTariffData;
 import com.tariff.calculation.tariffCalc.dto.TariffCalculationQueryDTO;
 import com.tariff.calculation.tariffCalc.dto.TariffOverviewResponseDTO;
-import com.tariff.calculation.tariffCalc.dto.historicalTariffApiDto.WitsDTO;
-import com.tariff.calculation.tariffCalc.dto.historicalTariffApiDto.dataSets.TariffDataSet;
-import com.tariff.calculation.tariffCalc.dto.historicalTariffApiDto.dataSets.TariffSeries;
-import com.tariff.calculation.tariffCalc.dto.historicalTariffApiDto.dataSets.TariffSeriesData;
-import com.tariff.calculation.tariffCalc.dto.historicalTariffApiDto.structure.Dimension;
-import com.tariff.calculation.tariffCalc.dto.historicalTariffApiDto.structure.Observation;
-import com.tariff.calculation.tariffCalc.dto.historicalTariffApiDto.structure.StartPeriod;
-import com.tariff.calculation.tariffCalc.dto.historicalTariffApiDto.structure.Structure;
 import com.tariff.calculation.tariffCalc.exception.ApiFailureException;
 import com.tariff.calculation.tariffCalc.item.Item;
 import com.tariff.calculation.tariffCalc.item.ItemRepo;
 import com.tariff.calculation.tariffCalc.tariff.Tariff;
+import com.tariff.calculation.tariffCalc.tariff.TariffHistory;
+import com.tariff.calculation.tariffCalc.tariff.TariffHistoryRepo;
 import com.tariff.calculation.tariffCalc.tariff.TariffRepo;
-import com.tariff.calculation.tariffCalc.utility.LemmaUtils;
+import com.tariff.calculation.tariffCalc.upstream.NegativeCache;
+import com.tariff.calculation.tariffCalc.upstream.UpstreamClients;
+import com.tariff.calculation.tariffCalc.utility.LatencyTracker;
+import com.tariff.calculation.tariffCalc.utility.ItemNameNormalizer;
+import com.tariff.calculation.tariffCalc.utility.PhaseTimers;
+import com.tariff.calculation.tariffCalc.utility.SdmxTariffParser;
+import com.tariff.calculation.tariffCalc.utility.SdmxTariffParser.Observations;
+import com.tariff.calculation.tariffCalc.utility.SingleFlight;
+import com.tariff.calculation.tariffCalc.utility.TariffSeriesCodec;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 
 @Service
 public class TariffOverviewImpl implements TariffOverviewService {
 
     private final TariffRepo tariffRepo;
     private final ItemRepo itemRepo;
-    private final CountryRepo countryRepo;
+    private final CountryDirectory countryDirectory;
+    private final ItemNameNormalizer itemNameNormalizer;
+    private final TariffIngestionService tariffIngestionService;
     private final RestClient restClientWits;
+    private final NegativeCache negativeCache;
+    private final SingleFlight<String, List<Tariff>> witsFlights;
+    private final SingleFlight<String, Observations> historyFlights;
+    private final TariffHistoryRepo tariffHistoryRepo;
+    private final boolean compactHistory;
+    private final ExecutorService witsExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final LatencyTracker witsLatency;
+    private final Counter hedgedRequests;
+    private final boolean concurrentFallback;
+    private final boolean hedgeEnabled;
+    private final double hedgePercentile;
+    private final PhaseTimers phases;
     private final Logger log = LoggerFactory.getLogger(TariffOverviewImpl.class);
 
+    // WITS partner code meaning "all partners", asked for when there is no data for the specific pair
+    private static final String ALL_PARTNERS = "000";
+
     public TariffOverviewImpl(
-            CountryRepo countryRepo,
+            CountryDirectory countryDirectory,
+            ItemNameNormalizer itemNameNormalizer,
             ItemRepo itemRepo,
             TariffRepo tariffRepo,
-            RestClient.Builder restClientBuilder) {
-        this.countryRepo = countryRepo;
+            TariffHistoryRepo tariffHistoryRepo,
+            TariffIngestionService tariffIngestionService,
+            UpstreamClients upstreamClients,
+            NegativeCache negativeCache,
+            MeterRegistry meterRegistry,
+            @Value("${wits.fallback.concurrent:true}") boolean concurrentFallback,
+            @Value("${wits.hedge.enabled:true}") boolean hedgeEnabled,
+            @Value("${wits.hedge.percentile:0.95}") double hedgePercentile,
+            @Value("${wits.hedge.min-samples:20}") int hedgeMinSamples,
+            @Value("${tariff.history.storage:rows}") String historyStorage,
+            @Value("${wits.base-url:https://wits.worldbank.org/API/V1/SDMX/V21/}") String witsBaseUrl) {
+        this.countryDirectory = countryDirectory;
+        this.itemNameNormalizer = itemNameNormalizer;
         this.itemRepo = itemRepo;
         this.tariffRepo = tariffRepo;
-        this.restClientWits = restClientBuilder.clone()
-                .baseUrl("https://wits.worldbank.org/API/V1/SDMX/V21/")
-                .build();
+        this.tariffIngestionService = tariffIngestionService;
+        this.restClientWits = upstreamClients.create("wits", witsBaseUrl);
+        this.negativeCache = negativeCache;
+        this.witsFlights = new SingleFlight<>("wits", meterRegistry);
+        this.historyFlights = new SingleFlight<>("wits-history", meterRegistry);
+        this.tariffHistoryRepo = tariffHistoryRepo;
+        this.compactHistory = "compact".equalsIgnoreCase(historyStorage);
+        this.concurrentFallback = concurrentFallback;
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgePercentile = hedgePercentile;
+        this.witsLatency = new LatencyTracker(256, hedgeMinSamples);
+        this.phases = new PhaseTimers(meterRegistry, "overview");
+        this.hedgedRequests = Counter.builder("tariff.upstream.wits.hedged")
+                .description("Hedged duplicate requests sent to WITS")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        witsExecutor.shutdownNow();
     }
 
     // https://wits.worldbank.org/API/V1/SDMX/V21/datasource/TRN/reporter/840/partner/156/product/020110/year/all/datatype/reported?format=JSON
-    private List<Tariff> loadTariffsFromApi(Country reportingCountry, Country partnerCountry, Item item)
+    private Observations fetchObservations(Country reportingCountry, Country partnerCountry, Item item)
             throws ApiFailureException {
         String reportingCountryNumber = Integer.toString(reportingCountry.getCountryNumber());
                 
@@ -68,111 +129,235 @@ public class TariffOverviewImpl implements TariffOverviewService {
             partnerCountryNumber = "0" + partnerCountryNumber;
         }
         String itemNum = Integer.toString(item.getItemCode()).substring(0, 6);
-        WitsDTO result = null;
-        try {
-            result = restClientWits.get()
-                    .uri("datasource/TRN/reporter/" + reportingCountryNumber +
-                            "/partner/" + partnerCountryNumber +
-                            "/product/" + itemNum +
-                            "/year/all/datatype/reported?format=JSON")
-                    .retrieve()
-                    .onStatus((status) -> status.value() == 400 || status.value() == 404, (request, response) -> {
-                        throw new IllegalArgumentException("Dont have for this specific combination");
-                    })
-                    .body(WitsDTO.class);
-        } catch (IllegalArgumentException e) {
-            log.info("Exception found at " + e.getMessage());
-            result = restClientWits.get()
-                    .uri("datasource/TRN/reporter/" + reportingCountryNumber +
-                            "/partner/000/product/" + itemNum + "/year/all/datatype/reported?format=JSON")
-                    .retrieve()
-                    .onStatus((stat) -> stat.value() == 400 || stat.value() == 404, (req2, res1) -> {
-                        throw new ApiFailureException("Api call failed");
-                    })
-                    .body(WitsDTO.class);
-        }
+        String reporter = reportingCountryNumber;
+        String partner = partnerCountryNumber;
+        Observations result = phases.record(PhaseTimers.UPSTREAM,
+                () -> fetchWitsWithFallback(reporter, partner, itemNum));
 
-        if (result == null || result.dataSets() == null || result.structure() == null) {
+        if (result == null) {
             throw new ApiFailureException("Api call failed");
         }
 
-        log.info("Successfully retrieved tariff data, processing observations...");
-
-        // To get the dataObservation map:
-        // String key is the index of date,
-        // value is an array, the first element of the array contains the tariff rate
-        List<Tariff> tariffs = new ArrayList<>();
-        TariffDataSet dataSet = result.dataSets().get(0);
-        TariffSeries series = dataSet.series();
-        Map<String, TariffSeriesData> seriesMap = series.getSeriesData();
-        Map<String, List<Object>> dataObservation = seriesMap.get("0:0:0:0:0").observations(); // "0:0:0:0:0" should be
-                                                                                               // the only
-                                                                                               // key in the series map
-
-        // To get the dates, use the key from the dataObservation map
-        // to map to the tariffStartDates
-        Structure structure = result.structure();
-        Dimension timeDimension = structure.dimensions();
-        Observation timeObservation = timeDimension.observation().get(0);
-        List<StartPeriod> tariffStartDates = timeObservation.values();
-
-        // combine dataObservation with dates
-        for (Map.Entry<String, List<Object>> entry : dataObservation.entrySet()) {
-            // get the date index
-            String key = entry.getKey(); // "0", "1", "2", ...
-            int dateIndex = Integer.parseInt(key);
-
-            // get the tariff rate
-            List<Object> value = entry.getValue(); // [tariff rate, ...]
-            Double tariffRate = Double.parseDouble(value.get(0) + "");
-
-            // get the corresponding date
-            String startDateString = tariffStartDates.get(dateIndex).start();
-            log.info(startDateString);
-            LocalDate startDate = LocalDateTime.parse(startDateString).toLocalDate();
-
-            tariffs.add(new Tariff(reportingCountry, partnerCountry, item, tariffRate, "Info not available" ,startDate));
+        log.info("Retrieved {} tariff observations, processing...", result.size());
+        return result;
+    }
+
+    private List<Tariff> loadTariffsFromApi(Country reportingCountry, Country partnerCountry, Item item)
+            throws ApiFailureException {
+        Observations result = fetchObservations(reportingCountry, partnerCountry, item);
+
+        // Observations of every series, already paired with their period start date
+        List<Tariff> tariffs = new ArrayList<>(result.size());
+        for (int i = 0; i < result.size(); i++) {
+            tariffs.add(new Tariff(reportingCountry, partnerCountry, item, result.rates()[i], "Info not available",
+                    result.date(i)));
+        }
+
+        // One transaction, batched upserts instead of a save per observation
+        List<Tariff> saved = phases.record(PhaseTimers.PERSISTENCE, () -> tariffIngestionService.ingest(tariffs));
+
+        log.info("Successfully processed {} tariff observations from API", saved.size());
+        return saved;
+    }
+
+    /*
+     * Compact storage mode: fetches the history from WITS and stores it as one
+     * encoded TariffHistory row for the pair, replacing any previous one.
+     */
+    private Observations loadHistoryFromApi(Country reportingCountry, Country partnerCountry, Item item)
+            throws ApiFailureException {
+        Observations result = fetchObservations(reportingCountry, partnerCountry, item);
+        phases.record(PhaseTimers.PERSISTENCE, () -> {
+            TariffHistory history = tariffHistoryRepo.findByReportingCountryNumberAndPartnerCountryNumberAndItemCode(
+                    reportingCountry.getCountryNumber(), partnerCountry.getCountryNumber(), item.getItemCode())
+                    .orElseGet(() -> new TariffHistory(reportingCountry.getCountryNumber(),
+                            partnerCountry.getCountryNumber(), item.getItemCode()));
+            history.setSeries(TariffSeriesCodec.encode(result));
+            history.setObservationCount(result.size());
+            history.setFetchedOn(LocalDate.now());
+            try {
+                return tariffHistoryRepo.save(history);
+            } catch (DataIntegrityViolationException e) {
+                // Another instance stored the same pair first, its copy is just as fresh
+                log.info("Tariff history for {} already stored", history.getItemCode());
+                return history;
+            }
+        });
+        return result;
+    }
+
+    /*
+     * Asks WITS for the exact reporter/partner pair and, when WITS has nothing for
+     * it, for partner 000 (all partners) instead.
+     *
+     * By default both requests are issued at once so a miss on the specific pair
+     * does not cost a second full round-trip: the specific result wins when it
+     * arrives, and the fallback request is cancelled. With
+     * wits.fallback.concurrent=false they run one after the other as before.
+     */
+    private Observations fetchWitsWithFallback(String reporter, String partner, String product) {
+        if (!concurrentFallback) {
+            try {
+                return fetchHedged(reporter, partner, product);
+            } catch (ApiFailureException e) {
+                log.info("Dont have for this specific combination, using partner 000");
+                return fetchHedged(reporter, ALL_PARTNERS, product);
+            }
+        }
+
+        Future<Observations> fallback = witsExecutor.submit(() -> fetchWits(reporter, ALL_PARTNERS, product));
+        try {
+            Observations specific = fetchHedged(reporter, partner, product);
+            fallback.cancel(true);
+            return specific;
+        } catch (ApiFailureException e) {
+            log.info("Dont have for this specific combination, using partner 000");
+            try {
+                return fallback.get();
+            } catch (ExecutionException fallbackFailure) {
+                throw unwrap(fallbackFailure);
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+                fallback.cancel(true);
+                throw new ApiFailureException("Interrupted while waiting for WITS", interrupted);
+            }
+        } catch (RuntimeException e) {
+            fallback.cancel(true);
+            throw e;
         }
+    }
 
-        tariffs.forEach((tariff) -> tariffRepo.save(tariff));
+    /*
+     * Issues the request and, if it is still running once it has taken longer than
+     * the configured percentile of recent successful WITS latencies, sends an
+     * identical hedge request. Whichever answers first is used and the other is
+     * cancelled.
+     * A "no data" answer is final, any other failure waits for the other attempt.
+     */
+    private Observations fetchHedged(String reporter, String partner, String product) {
+        long hedgeAfter = hedgeEnabled ? witsLatency.percentile(hedgePercentile) : -1;
+        ExecutorCompletionService<Observations> race = new ExecutorCompletionService<>(witsExecutor);
+        List<Future<Observations>> attempts = new ArrayList<>(2);
+        try {
+            attempts.add(race.submit(() -> fetchWits(reporter, partner, product)));
+            Future<Observations> done = hedgeAfter < 0 ? race.take() : race.poll(hedgeAfter, TimeUnit.MILLISECONDS);
+            if (done == null) {
+                log.info("WITS slower than {} ms, sending hedged request", hedgeAfter);
+                hedgedRequests.increment();
+                attempts.add(race.submit(() -> fetchWits(reporter, partner, product)));
+                done = race.take();
+            }
+            try {
+                return done.get();
+            } catch (ExecutionException e) {
+                if (attempts.size() == 1 || e.getCause() instanceof ApiFailureException) {
+                    throw e;
+                }
+                return race.take().get();
+            }
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiFailureException("Interrupted while waiting for WITS", e);
+        } finally {
+            attempts.forEach((attempt) -> attempt.cancel(true));
+        }
+    }
+
+    /*
+     * The body is streamed straight through SdmxTariffParser instead of being bound
+     * to WitsDTO. URI template so http.client.requests is tagged by endpoint, not by
+     * every reporter/partner/product.
+     */
+    private Observations fetchWits(String reporter, String partner, String product) {
+        // Pairs WITS has no data for are not asked again until the entry expires
+        String missKey = reporter + ":" + partner + ":" + product;
+        if (negativeCache.isKnownMiss(NegativeCache.WITS, missKey)) {
+            throw new ApiFailureException("No WITS data for " + missKey);
+        }
+        long start = System.nanoTime();
+        return restClientWits.get()
+                .uri("datasource/TRN/reporter/{reporter}/partner/{partner}/product/{product}"
+                        + "/year/all/datatype/reported?format=JSON", reporter, partner, product)
+                .exchange((request, response) -> {
+                    HttpStatusCode status = response.getStatusCode();
+                    if (status.value() == 400 || status.value() == 404) {
+                        negativeCache.recordMiss(NegativeCache.WITS, missKey, "WITS returned " + status.value());
+                        throw new ApiFailureException("Api call failed");
+                    }
+                    if (!status.is2xxSuccessful()) {
+                        throw new RestClientResponseException("WITS returned " + status.value(), status,
+                                response.getStatusText(), response.getHeaders(), null, null);
+                    }
+                    Observations observations = SdmxTariffParser.parse(response.getBody());
+                    // Only full successful answers feed the hedge delay, fast errors and timeouts would skew it
+                    witsLatency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    return observations;
+                });
+    }
 
-        log.info("Successfully processed {} tariff observations from API", tariffs.size());
-        return tariffs;
+    private RuntimeException unwrap(ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException cause) {
+            return cause;
+        }
+        return new ApiFailureException("Api call failed", e.getCause());
     }
 
     public TariffOverviewResponseDTO getTariffOverview(TariffCalculationQueryDTO queryDTO) {
-        Country reportingCountry = countryRepo.findByCountryName(queryDTO.reportingCountry())
+        Country reportingCountry = phases.record(PhaseTimers.COUNTRY,
+                () -> countryDirectory.findByName(queryDTO.reportingCountry()))
                 .orElseThrow(() -> new IllegalArgumentException("Reporting country not found"));
 
-        Country partnerCountry = countryRepo.findByCountryName(queryDTO.partnerCountry())
+        Country partnerCountry = phases.record(PhaseTimers.COUNTRY,
+                () -> countryDirectory.findByName(queryDTO.partnerCountry()))
                 .orElseThrow(() -> new IllegalArgumentException("Partner country not found"));
 
-        Item item = itemRepo.findByItemName(LemmaUtils.toSingular(queryDTO.item().toLowerCase().trim()) + reportingCountry.getCountryNumber())
-                .orElseGet(() ->itemRepo.findByItemName(LemmaUtils.toSingular(queryDTO.item().trim()).toLowerCase() 
-                            + "general")
-                .orElseThrow(() -> new IllegalArgumentException("Item not found for item " + queryDTO.item())));
+        Item item = phases.record(PhaseTimers.ITEM, () -> {
+            String itemName = itemNameNormalizer.canonical(queryDTO.item());
+            return itemRepo.findByItemName(itemNameNormalizer.customItemName(itemName, reportingCountry.getCountryNumber()))
+                    .orElseGet(() -> itemRepo.findByItemName(itemNameNormalizer.generalItemName(itemName))
+                    .orElseThrow(() -> new IllegalArgumentException("Item not found for item " + queryDTO.item())));
+        });
 
-        log.info("No problem with Item Query");
+        if (compactHistory) {
+            return new TariffOverviewResponseDTO(
+                    reportingCountry.getCountryName(),
+                    partnerCountry.getCountryName(),
+                    compactHistoricalData(reportingCountry, partnerCountry, item, queryDTO.itemCost()));
+        }
 
         // check if the tariffs are already in the database
-        final List<Tariff> tariffList = tariffRepo.findByReportingCountryAndPartnerCountryAndItem(reportingCountry,
-                partnerCountry, item);
+        List<Tariff> tariffList = phases.record(PhaseTimers.DB,
+                () -> tariffRepo.findByReportingCountryAndPartnerCountryAndItem(reportingCountry, partnerCountry, item));
 
-        log.info(tariffList.toString());
-        // if not, load from api
+        log.debug("Found {} stored tariffs", tariffList.size());
+        // if not, load from api. Concurrent misses for the same key share one WITS call
         if (tariffList.size() <= 1) {
-            log.info("Attempting to load....");
-            tariffList.addAll(loadTariffsFromApi(reportingCountry, partnerCountry, item));
+            String flightKey = reportingCountry.getCountryNumber() + ":" + partnerCountry.getCountryNumber()
+                    + ":" + item.getItemCode();
+            tariffList = witsFlights.execute(flightKey, () -> {
+                List<Tariff> stored = tariffRepo.findByReportingCountryAndPartnerCountryAndItem(reportingCountry,
+                        partnerCountry, item);
+                if (stored.size() > 1) {
+                    return stored;
+                }
+                log.info("Attempting to load....");
+                List<Tariff> combined = new ArrayList<>(stored);
+                combined.addAll(loadTariffsFromApi(reportingCountry, partnerCountry, item));
+                return combined;
+            });
         }
 
-        List<HistoricalTariffData> historicalTariffData = tariffList.stream()
+        List<Tariff> resolved = tariffList;
+        List<HistoricalTariffData> historicalTariffData = phases.record(PhaseTimers.RESPONSE, () -> resolved.stream()
                 .map(tariff -> new HistoricalTariffData(
                         tariff.getLocalDate(), // start period
                         tariff.getPercentageRate(),
                         tariff.getPercentageRate() * queryDTO.itemCost() / 100.0,
                         queryDTO.itemCost() + tariff.getPercentageRate() * queryDTO.itemCost() / 100.0))
                 .sorted((a, b) -> a.startPeriod().compareTo(b.startPeriod())) // sort start period by date
-                .toList();
+                .toList());
 
         log.info("Returning {} historical tariff data points after filtering", historicalTariffData.size());
 
@@ -182,8 +367,52 @@ public class TariffOverviewImpl implements TariffOverviewService {
                 historicalTariffData);
     }
 
+    /*
+     * Compact storage mode: one row fetch and a decode instead of an entity per
+     * observation. The series is stored sorted by date, so no sort is needed.
+     */
+    private List<HistoricalTariffData> compactHistoricalData(Country reportingCountry, Country partnerCountry,
+            Item item, double itemCost) {
+        int reportingNumber = reportingCountry.getCountryNumber();
+        int partnerNumber = partnerCountry.getCountryNumber();
+        int itemCode = item.getItemCode();
+
+        Observations series = phases.record(PhaseTimers.DB, () -> tariffHistoryRepo
+                .findByReportingCountryNumberAndPartnerCountryNumberAndItemCode(reportingNumber, partnerNumber, itemCode)
+                .map((history) -> TariffSeriesCodec.decode(history.getSeries()))
+                .orElse(null));
+
+        if (series == null) {
+            // Concurrent misses for the same key share one WITS call
+            series = historyFlights.execute(reportingNumber + ":" + partnerNumber + ":" + itemCode, () -> {
+                Optional<TariffHistory> stored = tariffHistoryRepo
+                        .findByReportingCountryNumberAndPartnerCountryNumberAndItemCode(reportingNumber, partnerNumber,
+                                itemCode);
+                if (stored.isPresent()) {
+                    return TariffSeriesCodec.decode(stored.get().getSeries());
+                }
+                log.info("Attempting to load....");
+                return loadHistoryFromApi(reportingCountry, partnerCountry, item);
+            });
+        }
+
+        Observations resolved = series;
+        List<HistoricalTariffData> historicalTariffData = phases.record(PhaseTimers.RESPONSE, () -> {
+            List<HistoricalTariffData> res = new ArrayList<>(resolved.size());
+            for (int i = 0; i < resolved.size(); i++) {
+                double rate = resolved.rates()[i];
+                res.add(new HistoricalTariffData(resolved.date(i), rate, rate * itemCost / 100.0,
+                        itemCost + rate * itemCost / 100.0));
+            }
+            return res;
+        });
+
+        log.info("Returning {} historical tariff data points from compact storage", historicalTariffData.size());
+        return historicalTariffData;
+    }
+
     public List<Country> getAllCountries() {
-        return countryRepo.findAll();
+        return countryDirectory.findAll();
     }
     
     public List<GeneralTariffDTO> getAllTariff(Integer tariffId) {
@@ -0,0 +1,246 @@
+package com.tariff.calculation.tariffCalc.service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.tariff.calculation.tariffCalc.config.WarmupProperties;
+import com.tariff.calculation.tariffCalc.country.Country;
+import com.tariff.calculation.tariffCalc.country.CountryDirectory;
+import com.tariff.calculation.tariffCalc.dto.WarmupStatusDTO;
+import com.tariff.calculation.tariffCalc.item.Item;
+import com.tariff.calculation.tariffCalc.item.ItemRepo;
+import com.tariff.calculation.tariffCalc.warmup.WarmupStatus;
+import com.tariff.calculation.tariffCalc.warmup.WarmupTask;
+import com.tariff.calculation.tariffCalc.warmup.WarmupTaskRepo;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/*
+ * Background crawler that preloads items and current tariffs for popular
+ * reporter/item combinations off-peak, so the first user to ask for them does
+ * not pay for the upstream calls.
+ *
+ * Each combination is a persisted WarmupTask. A run works through the tasks
+ * that are still pending (or failed fewer than maxAttempts times) with at most
+ * `concurrency` upstream calls in flight and at least `minInterval` between two
+ * task starts, and stops starting new ones after `maxDuration`. Whatever is left
+ * is resumed by the next run. Once every task is done, the next run starts a
+ * fresh cycle.
+ */
+@Service
+public class WarmupImpl implements WarmupService {
+
+    private static final String HS_PREFIX = "hs:";
+    private static final String ITEM_PREFIX = "item:";
+
+    private final Logger log = LoggerFactory.getLogger(WarmupImpl.class);
+
+    private final WarmupProperties properties;
+    private final WarmupTaskRepo warmupTaskRepo;
+    private final TariffCalculationService tariffCalculationService;
+    private final CountryDirectory countryDirectory;
+    private final ItemRepo itemRepo;
+    private final Counter completedTasks;
+    private final Counter failedTasks;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile LocalDateTime lastStarted;
+    private volatile LocalDateTime lastFinished;
+
+    public WarmupImpl(WarmupProperties properties, WarmupTaskRepo warmupTaskRepo,
+            TariffCalculationService tariffCalculationService, CountryDirectory countryDirectory, ItemRepo itemRepo,
+            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.warmupTaskRepo = warmupTaskRepo;
+        this.tariffCalculationService = tariffCalculationService;
+        this.countryDirectory = countryDirectory;
+        this.itemRepo = itemRepo;
+        this.completedTasks = Counter.builder("tariff.warmup.tasks").tag("result", "done").register(meterRegistry);
+        this.failedTasks = Counter.builder("tariff.warmup.tasks").tag("result", "failed").register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${tariff.warmup.cron:0 0 3 * * *}")
+    public void scheduledRun() {
+        if (properties.isEnabled()) {
+            run();
+        }
+    }
+
+    public boolean runAsync() {
+        // Claimed here, so a second caller is told right away that a run is in progress
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            Thread.ofVirtual().name("tariff-warmup").start(this::runClaimed);
+        } catch (RuntimeException | Error e) {
+            running.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    public boolean run() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Warm-up already running");
+            return false;
+        }
+        runClaimed();
+        return true;
+    }
+
+    // Runs one crawl for a caller that has set the running flag, and clears it afterwards
+    private void runClaimed() {
+        lastStarted = LocalDateTime.now();
+        try {
+            crawl();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("Warm-up interrupted, will resume on the next run");
+        } finally {
+            lastFinished = LocalDateTime.now();
+            running.set(false);
+        }
+    }
+
+    // Read-only: combinations without a stored task yet are counted as pending, not created
+    public WarmupStatusDTO getStatus() {
+        List<WarmupTask> tasks = plannedTasks(false);
+        int done = 0;
+        int failed = 0;
+        for (WarmupTask task : tasks) {
+            if (task.getStatus() == WarmupStatus.DONE) {
+                done++;
+            } else if (task.getStatus() == WarmupStatus.FAILED && task.getAttempts() >= properties.getMaxAttempts()) {
+                failed++;
+            }
+        }
+        return new WarmupStatusDTO(properties.isEnabled(), running.get(), tasks.size(), done, failed,
+                tasks.size() - done - failed, lastStarted, lastFinished);
+    }
+
+    private void crawl() throws InterruptedException {
+        List<WarmupTask> tasks = plannedTasks(true);
+        List<WarmupTask> pending = tasks.stream().filter(this::runnable).toList();
+        if (pending.isEmpty() && !tasks.isEmpty()) {
+            log.info("Warm-up cycle complete, starting a new one over {} tasks", tasks.size());
+            tasks.forEach((task) -> {
+                task.setStatus(WarmupStatus.PENDING);
+                task.setAttempts(0);
+                task.setLastError(null);
+            });
+            pending = warmupTaskRepo.saveAll(tasks);
+        }
+        log.info("Warm-up starting with {} of {} tasks left", pending.size(), tasks.size());
+
+        Instant deadline = Instant.now().plus(properties.getMaxDuration());
+        Semaphore permits = new Semaphore(Math.max(1, properties.getConcurrency()));
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (WarmupTask task : pending) {
+                if (Instant.now().isAfter(deadline)) {
+                    log.info("Warm-up time budget used up, the remaining tasks resume on the next run");
+                    break;
+                }
+                permits.acquire();
+                executor.submit(() -> {
+                    try {
+                        execute(task);
+                    } finally {
+                        permits.release();
+                    }
+                });
+                Thread.sleep(properties.getMinInterval().toMillis());
+            }
+        }
+        log.info("Warm-up finished");
+    }
+
+    private boolean runnable(WarmupTask task) {
+        return task.getStatus() == WarmupStatus.PENDING
+                || (task.getStatus() == WarmupStatus.FAILED && task.getAttempts() < properties.getMaxAttempts());
+    }
+
+    private void execute(WarmupTask task) {
+        try {
+            Country reportingCountry = countryDirectory.findByNumber(task.getReportingCountryNumber())
+                    .orElseThrow(() -> new IllegalArgumentException("Country not found"));
+            String target = task.getTarget();
+            if (target.startsWith(HS_PREFIX)) {
+                int itemCode = Integer.parseInt(target.substring(HS_PREFIX.length()));
+                Item item = itemRepo.findById(itemCode)
+                        .orElseThrow(() -> new IllegalArgumentException("HS code " + itemCode + " is not stored"));
+                tariffCalculationService.preloadTariffs(reportingCountry, item);
+            } else {
+                tariffCalculationService.preloadItem(reportingCountry, target.substring(ITEM_PREFIX.length()));
+            }
+            task.setStatus(WarmupStatus.DONE);
+            task.setCompletedAt(LocalDateTime.now());
+            task.setLastError(null);
+            completedTasks.increment();
+        } catch (RuntimeException e) {
+            log.info("Warm-up of {} for {} failed: {}", task.getTarget(), task.getReportingCountryNumber(),
+                    e.getMessage());
+            task.setStatus(WarmupStatus.FAILED);
+            String message = String.valueOf(e.getMessage());
+            task.setLastError(message.length() > 500 ? message.substring(0, 500) : message);
+            failedTasks.increment();
+        }
+        task.setAttempts(task.getAttempts() + 1);
+        warmupTaskRepo.save(task);
+    }
+
+    /*
+     * The tasks for the current configuration. The ones that are new are created
+     * (and saved when persist is set, otherwise only returned). Tasks left over
+     * from an older configuration are ignored, not deleted.
+     */
+    private List<WarmupTask> plannedTasks(boolean persist) {
+        Set<Integer> reporters = new LinkedHashSet<>(properties.getReporters());
+        if (properties.isIncludeCustomReporters()) {
+            reporters.addAll(tariffCalculationService.getCustomItemReporters());
+        }
+        List<String> targets = new ArrayList<>();
+        properties.getHsCodes().forEach((code) -> targets.add(HS_PREFIX + code));
+        properties.getItems().forEach((item) -> targets.add(ITEM_PREFIX + item.trim().toLowerCase()));
+
+        Map<String, WarmupTask> existing = new HashMap<>();
+        warmupTaskRepo.findAll().forEach((task) -> existing.put(key(task.getReportingCountryNumber(), task.getTarget()), task));
+
+        List<WarmupTask> planned = new ArrayList<>();
+        List<WarmupTask> created = new ArrayList<>();
+        for (int reporter : reporters) {
+            for (String target : targets) {
+                WarmupTask task = existing.get(key(reporter, target));
+                if (task == null) {
+                    task = new WarmupTask(reporter, target);
+                    created.add(task);
+                }
+                planned.add(task);
+            }
+        }
+        if (persist && !created.isEmpty()) {
+            warmupTaskRepo.saveAll(created);
+        }
+        return planned;
+    }
+
+    private static String key(int reporter, String target) {
+        return reporter + "|" + target;
+    }
+}
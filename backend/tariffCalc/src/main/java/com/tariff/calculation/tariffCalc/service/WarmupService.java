@@ -0,0 +1,14 @@
+package com.tariff.calculation.tariffCalc.service;
+
+import com.tariff.calculation.tariffCalc.dto.WarmupStatusDTO;
+
+public interface WarmupService {
+
+    // Runs a crawl on the calling thread, returns false if one is already running
+    public boolean run();
+
+    // Starts a crawl in the background, returns false if one is already running
+    public boolean runAsync();
+
+    public WarmupStatusDTO getStatus();
+}
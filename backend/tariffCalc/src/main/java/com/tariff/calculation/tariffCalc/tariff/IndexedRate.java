@@ -0,0 +1,26 @@
+package com.tariff.calculation.tariffCalc.tariff;
+
+import java.time.LocalDate;
+
+/*
+ * Read-only view of the latest tariff for one (reporter, partner, item) key,
+ * as handed out by TariffRateIndex. Holds only what the response needs so the
+ * request path never has to hydrate a Tariff entity.
+ */
+public record IndexedRate(
+    int tariffId,
+    int partnerCountryNumber,
+    double percentageRate,
+    String description,
+    LocalDate localDate
+) {
+    public static IndexedRate of(Tariff tariff) {
+        return new IndexedRate(tariff.getId(), tariff.getPartnerCountry().getCountryNumber(),
+                tariff.getPercentageRate(), tariff.getDescription(), tariff.getLocalDate());
+    }
+
+    public static IndexedRate of(TariffRateView view) {
+        return new IndexedRate(view.id(), view.partnerCountryNumber(), view.percentageRate(), view.description(),
+                view.localDate());
+    }
+}
@@ -6,16 +6,25 @@ import com.tariff.calculation.tariffCalc.country.Country;
 import com.tariff.calculation.tariffCalc.item.Item;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+@EntityListeners(TariffRateIndexListener.class)
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_tariff_natural_key",
+        columnNames = {"reporting_country_id", "partner_country_id", "itemcode", "localDate"}),
+        indexes = @Index(name = "idx_tariff_latest",
+                columnList = "reporting_country_id, itemcode, partner_country_id, localDate DESC"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,52 @@
+package com.tariff.calculation.tariffCalc.tariff;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * Whole WITS history of one (reporter, partner, item) pair in a single row, used
+ * when tariff.history.storage=compact. The series column holds the dates and
+ * rates encoded by TariffSeriesCodec, so /tariff/past is one lookup on the unique
+ * key instead of loading a Tariff entity per year.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_tariff_history_pair",
+        columnNames = {"reportingCountryNumber", "partnerCountryNumber", "itemCode"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TariffHistory {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    private int reportingCountryNumber;
+
+    private int partnerCountryNumber;
+
+    private int itemCode;
+
+    private int observationCount;
+
+    @Column(nullable = false, length = 1048576)
+    private byte[] series;
+
+    // When the series was last fetched from WITS
+    private LocalDate fetchedOn;
+
+    public TariffHistory(int reportingCountryNumber, int partnerCountryNumber, int itemCode) {
+        this.reportingCountryNumber = reportingCountryNumber;
+        this.partnerCountryNumber = partnerCountryNumber;
+        this.itemCode = itemCode;
+    }
+}
@@ -0,0 +1,28 @@
+package com.tariff.calculation.tariffCalc.tariff;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface TariffHistoryRepo extends JpaRepository<TariffHistory, Integer> {
+    // Getters
+    public Optional<TariffHistory> findByReportingCountryNumberAndPartnerCountryNumberAndItemCode(
+            int reportingCountryNumber, int partnerCountryNumber, int itemCode);
+
+    // Deleters
+    @Transactional
+    public long deleteByReportingCountryNumberAndPartnerCountryNumberAndItemCode(
+            int reportingCountryNumber, int partnerCountryNumber, int itemCode);
+
+    @Transactional
+    public long deleteByItemCode(int itemCode);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TariffHistory h WHERE h.reportingCountryNumber = :countryNumber OR h.partnerCountryNumber = :countryNumber")
+    public int deleteByCountryNumber(@Param("countryNumber") int countryNumber);
+}
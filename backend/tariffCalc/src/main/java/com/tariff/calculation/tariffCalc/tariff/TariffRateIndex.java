@@ -0,0 +1,415 @@
+package com.tariff.calculation.tariffCalc.tariff;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/*
+ * Read-optimised index of the latest tariff rate per (reporter, partner, item).
+ *
+ * The three ids are packed into one long key and stored in an open-addressing
+ * table made of primitive arrays, so a lookup is a few array reads with no
+ * boxing and no entity hydration. Readers use an optimistic StampedLock read
+ * and only fall back to a real read lock if a writer got in the way.
+ *
+ * A slot is either a DIRECT entry (an actual Tariff row) or an ALIAS pointing
+ * at the key of the row that applies instead, e.g. a partner with no specific
+ * rate pointing at the reporter's "world" rate. Aliases are followed one hop,
+ * so refreshing or removing the target row is picked up automatically.
+ *
+ * Only the newest row (by localDate) is kept per key. Writes come in through
+ * TariffRateIndexListener whenever TariffRepo saves or deletes a Tariff.
+ *
+ * version() goes up whenever an indexed answer changes (a key gets another
+ * row, alias target or is removed, or the index is cleared), not when a key is
+ * indexed for the first time. It is sent to the gateway so cached responses
+ * can be dropped once the tariffs behind them change.
+ */
+@Component
+public class TariffRateIndex {
+
+    private static final byte EMPTY = 0;
+    private static final byte DIRECT = 1;
+    private static final byte ALIAS = 2;
+    private static final byte DELETED = 3;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int INITIAL_DESCRIPTIONS = 64;
+
+    private final Logger log = LoggerFactory.getLogger(TariffRateIndex.class);
+
+    private final StampedLock lock = new StampedLock();
+    private final int maxEntries;
+
+    // Guarded by lock. Volatile so optimistic readers always see a fully built table.
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+    // Interned descriptions, dropped together with the table so they cannot outgrow it
+    private volatile String[] descriptions = new String[INITIAL_DESCRIPTIONS];
+    private final Map<String, Integer> descriptionIds = new HashMap<>();
+    private int descriptionCount;
+    // Starts from the clock so it keeps increasing across restarts
+    private volatile long version = System.currentTimeMillis();
+
+    public TariffRateIndex(@Value("${tariff.index.max-entries:1048576}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /*
+     * Packs reporter and partner country numbers (16 bits each, so the -1
+     * "developing" sentinel still fits) and the item code (32 bits) into one key.
+     */
+    public static long key(int reportingCountryNumber, int partnerCountryNumber, int itemCode) {
+        return ((long) (reportingCountryNumber & 0xFFFF) << 48)
+                | ((long) (partnerCountryNumber & 0xFFFF) << 32)
+                | (itemCode & 0xFFFFFFFFL);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /*
+     * Returns the rate indexed for exactly this key (following an alias if there
+     * is one), or null if the key has never been resolved.
+     */
+    public IndexedRate lookup(int reportingCountryNumber, int partnerCountryNumber, int itemCode) {
+        long key = key(reportingCountryNumber, partnerCountryNumber, itemCode);
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                IndexedRate found = read(key);
+                if (lock.validate(stamp)) {
+                    return found;
+                }
+            } catch (RuntimeException e) {
+                // Torn read while a writer was resizing, retry under the read lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return read(key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public void put(Tariff tariff) {
+        if (!indexable(tariff)) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            putDirect(key(tariff.getReportingCountry().getCountryNumber(),
+                    tariff.getPartnerCountry().getCountryNumber(),
+                    tariff.getItem().getItemCode()),
+                    tariff.getId(), tariff.getPercentageRate(), tariff.getDescription(), tariff.getLocalDate());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void put(int reportingCountryNumber, int itemCode, TariffRateView view) {
+        long stamp = lock.writeLock();
+        try {
+            putDirect(key(reportingCountryNumber, view.partnerCountryNumber(), itemCode),
+                    view.id(), view.percentageRate(), view.description(), view.localDate());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void putAll(List<Tariff> tariffs) {
+        long stamp = lock.writeLock();
+        try {
+            for (Tariff tariff : tariffs) {
+                if (indexable(tariff)) {
+                    putDirect(key(tariff.getReportingCountry().getCountryNumber(),
+                            tariff.getPartnerCountry().getCountryNumber(),
+                            tariff.getItem().getItemCode()),
+                            tariff.getId(), tariff.getPercentageRate(), tariff.getDescription(),
+                            tariff.getLocalDate());
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /*
+     * Points (reporter, partner, item) at the row stored under (reporter, target, item).
+     * Never replaces a partner's own rate.
+     */
+    public void alias(int reportingCountryNumber, int partnerCountryNumber, int itemCode, int targetPartnerNumber) {
+        long key = key(reportingCountryNumber, partnerCountryNumber, itemCode);
+        long target = key(reportingCountryNumber, targetPartnerNumber, itemCode);
+        if (key == target) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            Table current = prepareInsert();
+            int slot = current.slotFor(key);
+            if (current.states[slot] == DIRECT) {
+                return;
+            }
+            if (current.states[slot] == ALIAS && current.aliasKeys[slot] != target) {
+                changed();
+            }
+            current.claim(slot, key);
+            current.states[slot] = ALIAS;
+            current.aliasKeys[slot] = target;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /*
+     * Drops the row if it is the one currently indexed for its key. Aliases that
+     * pointed at it stop resolving, so callers go back to the database.
+     */
+    public void remove(Tariff tariff) {
+        if (!indexable(tariff)) {
+            return;
+        }
+        long key = key(tariff.getReportingCountry().getCountryNumber(),
+                tariff.getPartnerCountry().getCountryNumber(),
+                tariff.getItem().getItemCode());
+        long stamp = lock.writeLock();
+        try {
+            Table current = table;
+            int slot = current.find(key);
+            if (slot >= 0 && current.states[slot] == DIRECT && current.tariffIds[slot] == tariff.getId()) {
+                current.states[slot] = DELETED;
+                current.live--;
+                changed();
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            reset();
+            changed();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return table.live;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private boolean indexable(Tariff tariff) {
+        return tariff.getId() != null
+                && tariff.getReportingCountry() != null
+                && tariff.getPartnerCountry() != null
+                && tariff.getItem() != null
+                && tariff.getItem().getItemCode() != null
+                && tariff.getPercentageRate() != null
+                && tariff.getLocalDate() != null;
+    }
+
+    private IndexedRate read(long key) {
+        Table current = table;
+        int slot = current.find(key);
+        if (slot < 0) {
+            return null;
+        }
+        if (current.states[slot] == ALIAS) {
+            slot = current.find(current.aliasKeys[slot]);
+            if (slot < 0 || current.states[slot] != DIRECT) {
+                return null;
+            }
+        }
+        return new IndexedRate(
+                current.tariffIds[slot],
+                (short) (current.keys[slot] >>> 32),
+                current.rates[slot],
+                descriptions[current.descriptionIds[slot]],
+                LocalDate.ofEpochDay(current.epochDays[slot]));
+    }
+
+    // Caller holds the write lock
+    private void putDirect(long key, int tariffId, double rate, String description, LocalDate localDate) {
+        int epochDay = (int) localDate.toEpochDay();
+        Table current = prepareInsert();
+        int slot = current.slotFor(key);
+        if (current.states[slot] == DIRECT && current.epochDays[slot] > epochDay) {
+            // Already holding a newer row for this key
+            return;
+        }
+        int descriptionId = descriptionId(description);
+        if (current.states[slot] == ALIAS || (current.states[slot] == DIRECT
+                && (current.tariffIds[slot] != tariffId || current.rates[slot] != rate
+                        || current.descriptionIds[slot] != descriptionId))) {
+            changed();
+        }
+        current.claim(slot, key);
+        current.states[slot] = DIRECT;
+        current.tariffIds[slot] = tariffId;
+        current.rates[slot] = rate;
+        current.descriptionIds[slot] = descriptionId;
+        current.epochDays[slot] = epochDay;
+    }
+
+    // Caller holds the write lock
+    private void changed() {
+        version = Math.max(version + 1, System.currentTimeMillis());
+    }
+
+    // Caller holds the write lock
+    private int descriptionId(String description) {
+        Integer id = descriptionIds.get(description);
+        if (id != null) {
+            return id;
+        }
+        String[] current = descriptions;
+        if (descriptionCount == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[descriptionCount] = description;
+        descriptions = current;
+        descriptionIds.put(description, descriptionCount);
+        return descriptionCount++;
+    }
+
+    // Caller holds the write lock. Makes sure there is room for one more slot.
+    private Table prepareInsert() {
+        Table current = table;
+        if (current.live >= maxEntries) {
+            log.info("Tariff rate index reached {} entries, clearing", maxEntries);
+            current = reset();
+            changed();
+        } else if ((current.used + 1) * 4L > current.keys.length * 3L) {
+            int capacity = current.live * 2 >= current.keys.length ? current.keys.length * 2 : current.keys.length;
+            current = current.rehash(capacity);
+            table = current;
+        }
+        return current;
+    }
+
+    // Caller holds the write lock. Drops every entry and every interned description.
+    private Table reset() {
+        Table fresh = new Table(INITIAL_CAPACITY);
+        table = fresh;
+        descriptions = new String[INITIAL_DESCRIPTIONS];
+        descriptionIds.clear();
+        descriptionCount = 0;
+        return fresh;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /*
+     * One generation of the open-addressing table. Replaced wholesale on resize so
+     * optimistic readers never see arrays of different lengths.
+     */
+    private static final class Table {
+        private final long[] keys;
+        private final byte[] states;
+        private final long[] aliasKeys;
+        private final double[] rates;
+        private final int[] tariffIds;
+        private final int[] descriptionIds;
+        private final int[] epochDays;
+        // Non-empty slots, including deleted ones
+        private int used;
+        private int live;
+
+        private Table(int capacity) {
+            keys = new long[capacity];
+            states = new byte[capacity];
+            aliasKeys = new long[capacity];
+            rates = new double[capacity];
+            tariffIds = new int[capacity];
+            descriptionIds = new int[capacity];
+            epochDays = new int[capacity];
+        }
+
+        private int find(long key) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                byte state = states[slot];
+                if (state == EMPTY) {
+                    return -1;
+                }
+                if (state != DELETED && keys[slot] == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        // Slot already holding the key, else the first reusable slot on its probe path
+        private int slotFor(long key) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            int firstDeleted = -1;
+            while (true) {
+                byte state = states[slot];
+                if (state == EMPTY) {
+                    return firstDeleted >= 0 ? firstDeleted : slot;
+                }
+                if (state == DELETED) {
+                    if (firstDeleted < 0) {
+                        firstDeleted = slot;
+                    }
+                } else if (keys[slot] == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private void claim(int slot, long key) {
+            byte state = states[slot];
+            if (state == EMPTY) {
+                used++;
+                live++;
+            } else if (state == DELETED) {
+                live++;
+            }
+            keys[slot] = key;
+        }
+
+        private Table rehash(int capacity) {
+            Table next = new Table(capacity);
+            for (int i = 0; i < keys.length; i++) {
+                byte state = states[i];
+                if (state != DIRECT && state != ALIAS) {
+                    continue;
+                }
+                int slot = next.slotFor(keys[i]);
+                next.claim(slot, keys[i]);
+                next.states[slot] = state;
+                next.aliasKeys[slot] = aliasKeys[i];
+                next.rates[slot] = rates[i];
+                next.tariffIds[slot] = tariffIds[i];
+                next.descriptionIds[slot] = descriptionIds[i];
+                next.epochDays[slot] = epochDays[i];
+            }
+            return next;
+        }
+    }
+}
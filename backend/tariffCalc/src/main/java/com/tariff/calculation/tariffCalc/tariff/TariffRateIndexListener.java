@@ -0,0 +1,51 @@
+package com.tariff.calculation.tariffCalc.tariff;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/*
+ * Keeps TariffRateIndex in step with every write that goes through TariffRepo.
+ * Hibernate resolves this listener from the Spring context, so it shares the
+ * same index instance as the services.
+ *
+ * Inside a transaction the index is only updated once it commits, so a rolled
+ * back write never reaches it and other requests never read an uncommitted rate.
+ */
+@Component
+public class TariffRateIndexListener {
+
+    private final TariffRateIndex tariffRateIndex;
+
+    public TariffRateIndexListener(TariffRateIndex tariffRateIndex) {
+        this.tariffRateIndex = tariffRateIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Tariff tariff) {
+        afterCommit(() -> tariffRateIndex.put(tariff));
+    }
+
+    @PostRemove
+    public void onRemoved(Tariff tariff) {
+        afterCommit(() -> tariffRateIndex.remove(tariff));
+    }
+
+    private static void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,15 @@
+package com.tariff.calculation.tariffCalc.tariff;
+
+import java.time.LocalDate;
+
+/*
+ * Projection returned by TariffRepo.findLatestApplicable. Reads the partner
+ * straight off the foreign key so neither Country nor Item is joined or hydrated.
+ */
+public record TariffRateView(
+    Integer id,
+    Integer partnerCountryNumber,
+    Double percentageRate,
+    String description,
+    LocalDate localDate
+) {}
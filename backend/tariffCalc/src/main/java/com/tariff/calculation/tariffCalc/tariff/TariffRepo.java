@@ -1,14 +1,66 @@
 package com.tariff.calculation.tariffCalc.tariff;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import com.tariff.calculation.tariffCalc.country.Country;
 import com.tariff.calculation.tariffCalc.item.Item;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface TariffRepo extends JpaRepository<Tariff, Integer> {
     // Getters 
     public List<Tariff> findByReportingCountryAndItem(Country  reportingCountry, Item item);
     public List<Tariff> findByReportingCountryAndPartnerCountryAndItem(Country reportingCountry, Country partnerCountry, Item item);
+    public boolean existsByReportingCountryAndItem(Country reportingCountry, Item item);
+
+    /*
+     * The single newest row that applies to the partner: its own rate first, then
+     * the developing rate, then the world rate. Pass the partner's own number as
+     * developingCountryNumber when the partner is not a developing country.
+     * Served by idx_tariff_latest, so the cost stays flat as history grows.
+     */
+    @Query("""
+            SELECT new com.tariff.calculation.tariffCalc.tariff.TariffRateView(
+                t.id, t.partnerCountry.countryNumber, t.percentageRate, t.description, t.localDate)
+            FROM Tariff t
+            WHERE t.reportingCountry.countryNumber = :reportingCountryNumber
+              AND t.item.itemCode = :itemCode
+              AND t.partnerCountry.countryNumber IN (:partnerCountryNumber, :developingCountryNumber, :worldCountryNumber)
+            ORDER BY CASE
+                       WHEN t.partnerCountry.countryNumber = :partnerCountryNumber THEN 0
+                       WHEN t.partnerCountry.countryNumber = :developingCountryNumber THEN 1
+                       ELSE 2
+                     END,
+                     t.localDate DESC
+            LIMIT 1
+            """)
+    public Optional<TariffRateView> findLatestApplicable(
+            @Param("reportingCountryNumber") int reportingCountryNumber,
+            @Param("itemCode") int itemCode,
+            @Param("partnerCountryNumber") int partnerCountryNumber,
+            @Param("developingCountryNumber") int developingCountryNumber,
+            @Param("worldCountryNumber") int worldCountryNumber);
+
+    /*
+     * Every row of the reporter and item for the given partners, newest first.
+     * Lets a batch resolve all partners of one (reporter, item) group with a
+     * single query instead of one findLatestApplicable per partner.
+     */
+    @Query("""
+            SELECT new com.tariff.calculation.tariffCalc.tariff.TariffRateView(
+                t.id, t.partnerCountry.countryNumber, t.percentageRate, t.description, t.localDate)
+            FROM Tariff t
+            WHERE t.reportingCountry.countryNumber = :reportingCountryNumber
+              AND t.item.itemCode = :itemCode
+              AND t.partnerCountry.countryNumber IN :partnerCountryNumbers
+            ORDER BY t.localDate DESC, t.id DESC
+            """)
+    public List<TariffRateView> findApplicableForPartners(
+            @Param("reportingCountryNumber") int reportingCountryNumber,
+            @Param("itemCode") int itemCode,
+            @Param("partnerCountryNumbers") Collection<Integer> partnerCountryNumbers);
 } 
\ No newline at end of file
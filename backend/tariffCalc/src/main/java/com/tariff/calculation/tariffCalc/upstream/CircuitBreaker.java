@@ -0,0 +1,135 @@
+package com.tariff.calculation.tariffCalc.upstream;
+
+import java.util.function.BiConsumer;
+
+/*
+ * Count based circuit breaker.
+ *
+ * CLOSED: calls go through and their outcomes are kept for the last
+ * `slidingWindow` calls. Once at least `minimumCalls` are recorded and the
+ * failure rate reaches the threshold, the breaker opens.
+ * OPEN: calls are refused until `openDuration` has passed.
+ * HALF_OPEN: `halfOpenCalls` trial calls are let through. All of them
+ * succeeding closes the breaker, any failure opens it again.
+ */
+public final class CircuitBreaker {
+
+    // Ordinals are what the state gauge reports
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final boolean[] failed;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final BiConsumer<State, State> onTransition;
+
+    private State state = State.CLOSED;
+    private int position;
+    private int recorded;
+    private int failures;
+    private long openedAt;
+    private int trialsStarted;
+    private int trialsSucceeded;
+
+    /*
+     * @Param onTransition Called with (from, to) on every state change, under the breaker's lock
+     */
+    public CircuitBreaker(int slidingWindow, int minimumCalls, int failureRateThreshold, long openNanos,
+            int halfOpenCalls, BiConsumer<State, State> onTransition) {
+        this.failed = new boolean[Math.max(1, slidingWindow)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, failed.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openNanos;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.onTransition = onTransition;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    /*
+     * Asks for permission to make one call. Every granted call must be followed
+     * by exactly one of onSuccess, onFailure or onIgnored.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                return false;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsStarted >= halfOpenCalls) {
+                return false;
+            }
+            trialsStarted++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            trialsSucceeded++;
+            if (trialsSucceeded >= halfOpenCalls) {
+                transition(State.CLOSED);
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transition(State.OPEN);
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minimumCalls && failures * 100 >= failureRateThreshold * recorded) {
+                transition(State.OPEN);
+            }
+        }
+    }
+
+    /*
+     * The call ended without saying anything about the upstream (e.g. it was
+     * cancelled), so it only gives its trial slot back.
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && trialsStarted > trialsSucceeded) {
+            trialsStarted--;
+        }
+    }
+
+    private void record(boolean failure) {
+        if (recorded == failed.length) {
+            if (failed[position]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        failed[position] = failure;
+        if (failure) {
+            failures++;
+        }
+        position = (position + 1) % failed.length;
+    }
+
+    private void transition(State to) {
+        State from = state;
+        state = to;
+        // Every state starts from a clean slate
+        position = 0;
+        recorded = 0;
+        failures = 0;
+        trialsStarted = 0;
+        trialsSucceeded = 0;
+        if (to == State.OPEN) {
+            openedAt = System.nanoTime();
+        }
+        onTransition.accept(from, to);
+    }
+}
@@ -0,0 +1,196 @@
+package com.tariff.calculation.tariffCalc.upstream;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/*
+ * Remembers upstream lookups that came back with "no data" (400/404), so a
+ * repeat request for a country that does not trade an item, an unknown item
+ * name or a WITS pair without data is answered without calling upstream again.
+ *
+ * Entries live for tariff.negative-cache.ttl. They are held in memory and
+ * written through to the negative_result table, which is read back on first
+ * use after a restart. Expired entries are dropped on lookup and purged
+ * periodically.
+ *
+ * Lookups are counted as tariff.cache.requests tagged cache=negative-<endpoint>.
+ */
+@Component
+public class NegativeCache {
+
+    public static final String MOACH_TARIFF = "moach-tariff";
+    public static final String MOACH_ITEM = "moach-item";
+    public static final String WITS = "wits";
+
+    // Longer keys (odd item names) are simply not cached
+    private static final int MAX_KEY_LENGTH = 250;
+
+    private final Logger log = LoggerFactory.getLogger(NegativeCache.class);
+
+    private final NegativeResultRepo negativeResultRepo;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final int maxEntries;
+    private final ConcurrentHashMap<String, NegativeResult> entries = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public NegativeCache(
+            NegativeResultRepo negativeResultRepo,
+            MeterRegistry meterRegistry,
+            @Value("${tariff.negative-cache.enabled:true}") boolean enabled,
+            @Value("${tariff.negative-cache.ttl:7d}") Duration ttl,
+            @Value("${tariff.negative-cache.max-entries:100000}") int maxEntries) {
+        this.negativeResultRepo = negativeResultRepo;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        Gauge.builder("tariff.negative-cache.size", entries, ConcurrentHashMap::size)
+                .description("Known upstream misses currently cached")
+                .register(meterRegistry);
+    }
+
+    /*
+     * @Param endpoint One of MOACH_TARIFF, MOACH_ITEM or WITS
+     *
+     * @Param lookupKey What was asked for, e.g. "156:6404110000"
+     *
+     * @return true if the lookup is a known miss that has not expired yet
+     */
+    public boolean isKnownMiss(String endpoint, String lookupKey) {
+        if (!enabled) {
+            return false;
+        }
+        String cacheKey = cacheKey(endpoint, lookupKey);
+        NegativeResult entry = current().get(cacheKey);
+        if (entry != null && entry.getExpiresAt().isBefore(LocalDateTime.now())) {
+            entries.remove(cacheKey, entry);
+            entry = null;
+        }
+        meterRegistry.counter("tariff.cache.requests", "cache", "negative-" + endpoint,
+                "result", entry != null ? "hit" : "miss").increment();
+        return entry != null;
+    }
+
+    /*
+     * Remembers that the lookup has no data. Failing to persist it is logged and
+     * otherwise ignored, the entry still works until the next restart.
+     */
+    public void recordMiss(String endpoint, String lookupKey, String reason) {
+        if (!enabled || lookupKey.length() > MAX_KEY_LENGTH) {
+            return;
+        }
+        ConcurrentHashMap<String, NegativeResult> current = current();
+        if (current.size() >= maxEntries) {
+            purgeExpired();
+            if (current.size() >= maxEntries) {
+                log.info("Negative cache full with {} entries, not caching {}", current.size(), lookupKey);
+                return;
+            }
+        }
+        LocalDateTime now = LocalDateTime.now();
+        String trimmedReason = reason == null || reason.length() <= 255 ? reason : reason.substring(0, 255);
+        NegativeResult entry = new NegativeResult(cacheKey(endpoint, lookupKey), endpoint, lookupKey, trimmedReason,
+                now, now.plus(ttl));
+        current.put(entry.getCacheKey(), entry);
+        try {
+            negativeResultRepo.save(entry);
+        } catch (RuntimeException e) {
+            log.info("Could not persist negative result {}: {}", entry.getCacheKey(), e.getMessage());
+        }
+    }
+
+    // Live entries, newest first
+    public List<NegativeResult> entries() {
+        LocalDateTime now = LocalDateTime.now();
+        List<NegativeResult> live = new ArrayList<>();
+        current().values().forEach((entry) -> {
+            if (!entry.getExpiresAt().isBefore(now)) {
+                live.add(entry);
+            }
+        });
+        live.sort(Comparator.comparing(NegativeResult::getCreatedAt).reversed());
+        return live;
+    }
+
+    public boolean evict(String endpoint, String lookupKey) {
+        String cacheKey = cacheKey(endpoint, lookupKey);
+        NegativeResult removed = current().remove(cacheKey);
+        negativeResultRepo.deleteById(cacheKey);
+        return removed != null;
+    }
+
+    /*
+     * @Param endpoint Only clears this endpoint's entries, or everything if null
+     *
+     * @return how many entries were removed from memory
+     */
+    public int clear(String endpoint) {
+        ConcurrentHashMap<String, NegativeResult> current = current();
+        int before = current.size();
+        if (endpoint == null) {
+            current.clear();
+            negativeResultRepo.deleteAllInBatch();
+        } else {
+            current.values().removeIf((entry) -> endpoint.equals(entry.getEndpoint()));
+            negativeResultRepo.deleteByEndpoint(endpoint);
+        }
+        return before - current.size();
+    }
+
+    @Scheduled(fixedDelayString = "${tariff.negative-cache.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        if (!loaded) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        entries.values().removeIf((entry) -> entry.getExpiresAt().isBefore(now));
+        try {
+            long purged = negativeResultRepo.deleteByExpiresAtBefore(now);
+            log.debug("Purged {} expired negative results", purged);
+        } catch (RuntimeException e) {
+            log.info("Could not purge negative results: {}", e.getMessage());
+        }
+    }
+
+    private static String cacheKey(String endpoint, String lookupKey) {
+        return endpoint + "|" + lookupKey;
+    }
+
+    // Reads the persisted entries back on first use
+    private ConcurrentHashMap<String, NegativeResult> current() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    LocalDateTime now = LocalDateTime.now();
+                    try {
+                        negativeResultRepo.findAll().forEach((entry) -> {
+                            if (!entry.getExpiresAt().isBefore(now)) {
+                                entries.putIfAbsent(entry.getCacheKey(), entry);
+                            }
+                        });
+                        log.info("Negative cache loaded with {} entries", entries.size());
+                    } catch (RuntimeException e) {
+                        log.info("Could not load negative results: {}", e.getMessage());
+                    }
+                    loaded = true;
+                }
+            }
+        }
+        return entries;
+    }
+}
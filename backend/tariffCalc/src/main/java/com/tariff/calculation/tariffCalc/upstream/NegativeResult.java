@@ -0,0 +1,40 @@
+package com.tariff.calculation.tariffCalc.upstream;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * An upstream lookup that is known to have no data (Moach or WITS answered
+ * 400/404), remembered until expiresAt so it is not asked again.
+ *
+ * cacheKey is "<endpoint>|<lookupKey>", e.g. "moach-tariff|156:6404110000".
+ */
+@Entity
+@Table(name = "negative_result")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NegativeResult {
+    @Id
+    @Column(length = 300)
+    private String cacheKey;
+
+    private String endpoint;
+
+    @Column(length = 255)
+    private String lookupKey;
+
+    @Column(length = 255)
+    private String reason;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,15 @@
+package com.tariff.calculation.tariffCalc.upstream;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface NegativeResultRepo extends JpaRepository<NegativeResult, String> {
+    // Deleters
+    @Transactional
+    public long deleteByExpiresAtBefore(LocalDateTime now);
+
+    @Transactional
+    public long deleteByEndpoint(String endpoint);
+}
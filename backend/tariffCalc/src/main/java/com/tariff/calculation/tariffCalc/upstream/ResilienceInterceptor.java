@@ -0,0 +1,171 @@
+package com.tariff.calculation.tariffCalc.upstream;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import com.tariff.calculation.tariffCalc.config.UpstreamProperties.Policy;
+import com.tariff.calculation.tariffCalc.exception.UpstreamUnavailableException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/*
+ * Protects one upstream API. Every attempt has to get past the circuit breaker
+ * and then the token bucket; either refusing turns into an
+ * UpstreamUnavailableException without touching the network. Timeouts, 429 and
+ * 5xx answers count as failures and GETs are retried on them with full jitter
+ * backoff, as long as the retry budget allows. 400/404 are ordinary answers.
+ *
+ * Metrics, tagged with the upstream name:
+ *   tariff.upstream.circuit.state        gauge, 0 closed, 1 half open, 2 open
+ *   tariff.upstream.circuit.transitions  counter, tagged with the new state
+ *   tariff.upstream.rejected             counter, reason circuit-open or rate-limited
+ *   tariff.upstream.retries              counter, result attempted or budget-exhausted
+ */
+public class ResilienceInterceptor implements ClientHttpRequestInterceptor {
+
+    private final Logger log = LoggerFactory.getLogger(ResilienceInterceptor.class);
+
+    private final String name;
+    private final Policy policy;
+    private final CircuitBreaker circuitBreaker;
+    private final TokenBucket tokenBucket;
+    private final RetryBudget retryBudget;
+    private final Counter circuitRejected;
+    private final Counter rateLimited;
+    private final Counter retriesAttempted;
+    private final Counter retriesExhausted;
+
+    public ResilienceInterceptor(String name, Policy policy, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.policy = policy;
+        this.circuitBreaker = new CircuitBreaker(policy.getSlidingWindow(), policy.getMinimumCalls(),
+                policy.getFailureRateThreshold(), policy.getOpenDuration().toNanos(), policy.getHalfOpenCalls(),
+                (from, to) -> {
+                    log.warn("Circuit breaker for {} went from {} to {}", name, from, to);
+                    meterRegistry.counter("tariff.upstream.circuit.transitions", "upstream", name,
+                            "state", to.name().toLowerCase(Locale.ROOT)).increment();
+                });
+        this.tokenBucket = new TokenBucket(policy.getRatePerSecond(), policy.getBurst());
+        this.retryBudget = new RetryBudget(policy.getRetryRatio(), policy.getMinRetriesPerSecond());
+        Gauge.builder("tariff.upstream.circuit.state", circuitBreaker, (breaker) -> breaker.state().ordinal())
+                .tag("upstream", name)
+                .register(meterRegistry);
+        this.circuitRejected = meterRegistry.counter("tariff.upstream.rejected", "upstream", name,
+                "reason", "circuit-open");
+        this.rateLimited = meterRegistry.counter("tariff.upstream.rejected", "upstream", name,
+                "reason", "rate-limited");
+        this.retriesAttempted = meterRegistry.counter("tariff.upstream.retries", "upstream", name,
+                "result", "attempted");
+        this.retriesExhausted = meterRegistry.counter("tariff.upstream.retries", "upstream", name,
+                "result", "budget-exhausted");
+    }
+
+    public CircuitBreaker.State circuitState() {
+        return circuitBreaker.state();
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        retryBudget.onRequest();
+        for (int attempt = 0;; attempt++) {
+            acquirePermit();
+            ClientHttpResponse response;
+            try {
+                response = execution.execute(request, body);
+            } catch (IOException e) {
+                if (cancelled(e)) {
+                    circuitBreaker.onIgnored();
+                    throw e;
+                }
+                circuitBreaker.onFailure();
+                if (!shouldRetry(request, attempt)) {
+                    throw e;
+                }
+                log.info("{} attempt {} failed ({}), retrying", name, attempt + 1, e.getMessage());
+                continue;
+            }
+
+            if (!failed(response.getStatusCode())) {
+                circuitBreaker.onSuccess();
+                return response;
+            }
+            circuitBreaker.onFailure();
+            if (!shouldRetry(request, attempt)) {
+                return response;
+            }
+            log.info("{} attempt {} answered {}, retrying", name, attempt + 1, response.getStatusCode().value());
+            response.close();
+        }
+    }
+
+    private void acquirePermit() {
+        if (!circuitBreaker.tryAcquire()) {
+            circuitRejected.increment();
+            throw new UpstreamUnavailableException(name + " is unavailable, circuit breaker open");
+        }
+        long wait = tokenBucket.reserve(policy.getMaxRateWait().toNanos());
+        if (wait < 0) {
+            circuitBreaker.onIgnored();
+            rateLimited.increment();
+            throw new UpstreamUnavailableException(name + " rate limit exceeded");
+        }
+        if (wait > 0 && !sleep(wait)) {
+            circuitBreaker.onIgnored();
+            throw new UpstreamUnavailableException("Interrupted while waiting for " + name);
+        }
+    }
+
+    // Only idempotent requests, within maxRetries and the retry budget, after a jittered backoff
+    private boolean shouldRetry(HttpRequest request, int attempt) {
+        if (attempt >= policy.getMaxRetries()
+                || (request.getMethod() != HttpMethod.GET && request.getMethod() != HttpMethod.HEAD)) {
+            return false;
+        }
+        if (!retryBudget.tryRetry()) {
+            retriesExhausted.increment();
+            return false;
+        }
+        long cap = Math.min(policy.getRetryMaxDelay().toNanos(), policy.getRetryBaseDelay().toNanos() << attempt);
+        if (!sleep(ThreadLocalRandom.current().nextLong(cap + 1))) {
+            return false;
+        }
+        retriesAttempted.increment();
+        return true;
+    }
+
+    private static boolean failed(HttpStatusCode status) {
+        return status.is5xxServerError() || status.value() == 429;
+    }
+
+    // A hedged or cancelled call says nothing about the upstream's health
+    private static boolean cancelled(IOException e) {
+        return Thread.currentThread().isInterrupted()
+                || (e instanceof InterruptedIOException && !(e instanceof SocketTimeoutException));
+    }
+
+    private static boolean sleep(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
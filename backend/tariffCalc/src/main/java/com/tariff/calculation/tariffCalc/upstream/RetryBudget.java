@@ -0,0 +1,62 @@
+package com.tariff.calculation.tariffCalc.upstream;
+
+import java.util.Arrays;
+
+/*
+ * Caps retries to a fraction of the traffic over the last ten seconds, plus a
+ * small floor so a quiet client can still retry. While an upstream is failing
+ * this keeps retries from multiplying the load on it.
+ */
+public final class RetryBudget {
+
+    private static final int WINDOW_SECONDS = 10;
+
+    private final double retryRatio;
+    private final int minRetriesPerSecond;
+    // One bucket per second of the window, reused round robin
+    private final long[] bucketSecond = new long[WINDOW_SECONDS];
+    private final int[] requests = new int[WINDOW_SECONDS];
+    private final int[] retries = new int[WINDOW_SECONDS];
+
+    public RetryBudget(double retryRatio, int minRetriesPerSecond) {
+        this.retryRatio = retryRatio;
+        this.minRetriesPerSecond = minRetriesPerSecond;
+        Arrays.fill(bucketSecond, Long.MIN_VALUE);
+    }
+
+    public synchronized void onRequest() {
+        requests[bucket(now())]++;
+    }
+
+    // Withdraws one retry if the budget allows it
+    public synchronized boolean tryRetry() {
+        long second = now();
+        int totalRequests = 0;
+        int totalRetries = 0;
+        for (int i = 0; i < WINDOW_SECONDS; i++) {
+            if (bucketSecond[i] > second - WINDOW_SECONDS) {
+                totalRequests += requests[i];
+                totalRetries += retries[i];
+            }
+        }
+        if (totalRetries >= minRetriesPerSecond * WINDOW_SECONDS + retryRatio * totalRequests) {
+            return false;
+        }
+        retries[bucket(second)]++;
+        return true;
+    }
+
+    private int bucket(long second) {
+        int index = Math.floorMod(second, WINDOW_SECONDS);
+        if (bucketSecond[index] != second) {
+            bucketSecond[index] = second;
+            requests[index] = 0;
+            retries[index] = 0;
+        }
+        return index;
+    }
+
+    private static long now() {
+        return System.nanoTime() / 1_000_000_000L;
+    }
+}
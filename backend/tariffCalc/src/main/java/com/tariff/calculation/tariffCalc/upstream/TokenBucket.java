@@ -0,0 +1,49 @@
+package com.tariff.calculation.tariffCalc.upstream;
+
+/*
+ * Token bucket rate limiter. Holds up to `burst` tokens and refills at
+ * `ratePerSecond`. A caller that finds the bucket empty reserves the next token
+ * and is told how long to wait for it, so waiting callers are served in order
+ * instead of all waking up at once.
+ */
+public final class TokenBucket {
+
+    private final double tokensPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.tokensPerNano = ratePerSecond / 1_000_000_000d;
+        this.capacity = burst;
+        this.tokens = burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /*
+     * @Param maxWaitNanos The longest the caller is willing to wait
+     *
+     * @return nanoseconds to wait before using the reserved token (0 if one was
+     * available), or -1 if that would take longer than maxWaitNanos, in which
+     * case nothing is reserved
+     */
+    public synchronized long reserve(long maxWaitNanos) {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        // Tokens may go negative: each reservation pushes the next caller further back
+        long wait = (long) Math.ceil((1 - tokens) / tokensPerNano);
+        if (wait > maxWaitNanos) {
+            return -1;
+        }
+        tokens -= 1;
+        return wait;
+    }
+}
@@ -0,0 +1,52 @@
+package com.tariff.calculation.tariffCalc.upstream;
+
+import java.net.http.HttpClient;
+
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import com.tariff.calculation.tariffCalc.config.UpstreamProperties;
+import com.tariff.calculation.tariffCalc.config.UpstreamProperties.Policy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/*
+ * Builds the RestClients the services use to call the upstream APIs, each with
+ * its own timeouts and ResilienceInterceptor as configured under
+ * upstream.clients.<name>. Clients are built from Spring's RestClient.Builder so
+ * they keep the http.client.requests observations.
+ */
+@Component
+public class UpstreamClients {
+
+    private final RestClient.Builder restClientBuilder;
+    private final UpstreamProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public UpstreamClients(RestClient.Builder restClientBuilder, UpstreamProperties properties,
+            MeterRegistry meterRegistry) {
+        this.restClientBuilder = restClientBuilder;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /*
+     * @Param name Upstream name, used for its policy and as the metrics tag
+     *
+     * @Param baseUrl Base URL of the upstream API
+     */
+    public RestClient create(String name, String baseUrl) {
+        Policy policy = properties.policy(name);
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(policy.getConnectTimeout())
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(policy.getReadTimeout());
+        return restClientBuilder.clone()
+                .baseUrl(baseUrl)
+                .requestFactory(requestFactory)
+                .requestInterceptor(new ResilienceInterceptor(name, policy, meterRegistry))
+                .build();
+    }
+}
@@ -0,0 +1,123 @@
+package com.tariff.calculation.tariffCalc.utility;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Plural noun dictionary in the sorted string table written by
+ * LemmaDictionaryCompiler, memory-mapped and searched in place.
+ *
+ * Layout (big endian):
+ *
+ *   int   MAGIC
+ *   int   count
+ *   int[] count entry offsets, in unsigned UTF-8 byte order of the words
+ *   entries: u8 word length, word bytes,
+ *            u8 length of the prefix shared with the singular,
+ *            u8 suffix length, suffix bytes
+ *
+ * A lookup is a binary search over the offsets comparing bytes in the buffer,
+ * so nothing is allocated per entry and only the pages touched are read in.
+ * "wolves" -> "wolf" is stored as prefix 3 plus suffix "f".
+ */
+public final class CompactLemmatizer implements Lemmatizer {
+
+    static final int MAGIC = 0x4C454D31; // "LEM1"
+    static final int HEADER_BYTES = 8;
+
+    private final ByteBuffer table;
+    private final int count;
+
+    public CompactLemmatizer(ByteBuffer table) {
+        if (table.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a compiled lemma dictionary");
+        }
+        this.table = table;
+        this.count = table.getInt(4);
+    }
+
+    /*
+     * @Param file A dictionary written by LemmaDictionaryCompiler
+     */
+    public static CompactLemmatizer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new CompactLemmatizer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /*
+     * Maps the dictionary in place when it is a plain file (exploded classpath),
+     * otherwise copies it out of the jar to a temp file once and maps that.
+     */
+    public static CompactLemmatizer map(URL resource) throws IOException {
+        if ("file".equals(resource.getProtocol())) {
+            try {
+                return map(Path.of(resource.toURI()));
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+        Path copy = Files.createTempFile("lemmas-", ".bin");
+        copy.toFile().deleteOnExit();
+        try (InputStream in = resource.openStream()) {
+            Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return map(copy);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public String singular(String word) {
+        byte[] key = word.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = table.getInt(HEADER_BYTES + middle * 4);
+            int compared = compareKey(entry, key);
+            if (compared < 0) {
+                low = middle + 1;
+            } else if (compared > 0) {
+                high = middle - 1;
+            } else {
+                return lemma(entry, key);
+            }
+        }
+        return null;
+    }
+
+    // Stored word at entry against key, unsigned byte order
+    private int compareKey(int entry, byte[] key) {
+        int length = table.get(entry) & 0xFF;
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int compared = Integer.compare(table.get(entry + 1 + i) & 0xFF, key[i] & 0xFF);
+            if (compared != 0) {
+                return compared;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    private String lemma(int entry, byte[] key) {
+        int position = entry + 1 + (table.get(entry) & 0xFF);
+        int prefix = table.get(position) & 0xFF;
+        int suffix = table.get(position + 1) & 0xFF;
+        byte[] lemma = new byte[prefix + suffix];
+        System.arraycopy(key, 0, lemma, 0, prefix);
+        table.get(position + 2, lemma, prefix, suffix);
+        return new String(lemma, StandardCharsets.UTF_8);
+    }
+}
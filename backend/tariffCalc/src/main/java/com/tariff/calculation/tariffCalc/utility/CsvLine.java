@@ -0,0 +1,52 @@
+package com.tariff.calculation.tariffCalc.utility;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Splitting of a single CSV record with RFC 4180 quoting, shared by the
+ * startup seeding and the bulk schedule import.
+ */
+public final class CsvLine {
+
+    private CsvLine() {
+    }
+
+    /*
+     * @Param line One record, without the line break, e.g. 68,BO,"Bolivia, Plurinational State of",TRUE
+     *
+     * @return the unquoted fields, "" for empty ones
+     *
+     * @throws IllegalArgumentException if a quoted field is not closed
+     */
+    public static List<String> split(String line) {
+        List<String> fields = new ArrayList<>(8);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,65 @@
+package com.tariff.calculation.tariffCalc.utility;
+
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/*
+ * Single place that turns whatever the user typed as an item into the name the
+ * item is stored under.
+ *
+ * The canonical form is trimmed, lower-cased, comma-free and singular
+ * ("Tennis Shoes," -> "tennis shoe"). Lemmatizing is the expensive part, so
+ * canonical forms are memoised in a bounded LRU keyed by the raw input.
+ * Stored item names are the canonical form plus the reporting country number
+ * for countries with their own codes, or plus "general" for everyone else.
+ */
+@Component
+public class ItemNameNormalizer {
+
+    private static final String GENERAL = "general";
+
+    private final BoundedLruCache<String, String> canonicalNames;
+
+    public ItemNameNormalizer(@Value("${tariff.item-name.cache-size:10000}") int cacheSize,
+            MeterRegistry meterRegistry) {
+        this.canonicalNames = new BoundedLruCache<>(cacheSize);
+        FunctionCounter.builder("tariff.cache.requests", canonicalNames, BoundedLruCache::hits)
+                .tag("cache", "item-name")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("tariff.cache.requests", canonicalNames, BoundedLruCache::misses)
+                .tag("cache", "item-name")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /*
+     * @Param rawItem The item as typed by the user
+     *
+     * @return the canonical item name, used both for lookups and for the API query
+     */
+    public String canonical(String rawItem) {
+        if (rawItem == null) {
+            throw new IllegalArgumentException("Item is required");
+        }
+        return canonicalNames.get(rawItem, ItemNameNormalizer::normalize);
+    }
+
+    public String customItemName(String canonicalName, int reportingCountryNumber) {
+        return canonicalName + reportingCountryNumber;
+    }
+
+    public String generalItemName(String canonicalName) {
+        return canonicalName + GENERAL;
+    }
+
+    private static String normalize(String rawItem) {
+        String cleaned = rawItem.trim().toLowerCase(Locale.ROOT).replace(",", "");
+        return LemmaUtils.toSingular(cleaned);
+    }
+}
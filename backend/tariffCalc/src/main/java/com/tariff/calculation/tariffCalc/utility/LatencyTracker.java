@@ -0,0 +1,47 @@
+package com.tariff.calculation.tariffCalc.utility;
+
+import java.util.Arrays;
+
+/*
+ * Sliding window of the most recent call latencies, used to decide when a
+ * request has been slow enough to be worth hedging.
+ */
+public class LatencyTracker {
+
+    private final long[] samples;
+    private final int minSamples;
+    private int next;
+    private int count;
+
+    public LatencyTracker(int windowSize, int minSamples) {
+        this.samples = new long[windowSize];
+        this.minSamples = minSamples;
+    }
+
+    public synchronized void record(long millis) {
+        samples[next] = millis;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    /*
+     * @Param percentile between 0 and 1, e.g. 0.95
+     *
+     * @return the latency in millis at that percentile of the window, or -1 while
+     * there are fewer than minSamples samples to go on
+     */
+    public long percentile(double percentile) {
+        long[] window;
+        synchronized (this) {
+            if (count < minSamples) {
+                return -1;
+            }
+            window = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(window);
+        int rank = (int) Math.ceil(percentile * window.length) - 1;
+        return window[Math.max(0, Math.min(rank, window.length - 1))];
+    }
+}
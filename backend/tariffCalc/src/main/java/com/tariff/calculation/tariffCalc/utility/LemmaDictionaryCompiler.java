@@ -0,0 +1,113 @@
+package com.tariff.calculation.tariffCalc.utility;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Build step that compiles the OpenNLP en-lemmatizer.dict (word TAB tag TAB
+ * lemma[#lemma...] per line) into the table read by CompactLemmatizer.
+ *
+ * Only plural noun (NNS) entries are kept, as toSingular asks for nothing else,
+ * and entries whose lemma is the word itself are dropped, as an unknown word is
+ * kept unchanged anyway. Like DictionaryLemmatizer, the first lemma of an entry
+ * is used and a later line for the same word wins.
+ *
+ * Run by the exec plugin in process-classes:
+ *   LemmaDictionaryCompiler <en-lemmatizer.dict> <output .bin>
+ * A missing source dictionary is skipped, LemmaUtils then falls back to OpenNLP.
+ */
+public final class LemmaDictionaryCompiler {
+
+    private static final String PLURAL_NOUN = "NNS";
+    private static final int MAX_BYTES = 255;
+
+    private LemmaDictionaryCompiler() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: LemmaDictionaryCompiler <dictionary> <output>");
+        }
+        Path source = Path.of(args[0]);
+        Path target = Path.of(args[1]);
+        if (!Files.exists(source)) {
+            System.out.println("No lemma dictionary at " + source + ", skipping");
+            return;
+        }
+        int entries = compile(source, target);
+        System.out.println("Compiled " + entries + " plural nouns into " + target + " (" + Files.size(target) + " bytes)");
+    }
+
+    /*
+     * @return the number of entries written
+     */
+    public static int compile(Path source, Path target) throws IOException {
+        Map<String, String> singulars = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t");
+                if (fields.length >= 3 && fields[1].equals(PLURAL_NOUN)) {
+                    singulars.put(fields[0], fields[2].split("#")[0]);
+                }
+            }
+        }
+
+        List<byte[][]> entries = new ArrayList<>(singulars.size());
+        for (Map.Entry<String, String> singular : singulars.entrySet()) {
+            byte[] word = singular.getKey().getBytes(StandardCharsets.UTF_8);
+            byte[] lemma = singular.getValue().getBytes(StandardCharsets.UTF_8);
+            if (!Arrays.equals(word, lemma) && word.length <= MAX_BYTES && lemma.length <= MAX_BYTES) {
+                entries.add(new byte[][] { word, lemma });
+            }
+        }
+        entries.sort((a, b) -> Arrays.compareUnsigned(a[0], b[0]));
+
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        try (OutputStream file = Files.newOutputStream(target);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(CompactLemmatizer.MAGIC);
+            out.writeInt(entries.size());
+            int offset = CompactLemmatizer.HEADER_BYTES + entries.size() * 4;
+            for (byte[][] entry : entries) {
+                out.writeInt(offset);
+                offset += 3 + entry[0].length + entry[1].length - sharedPrefix(entry[0], entry[1]);
+            }
+            for (byte[][] entry : entries) {
+                byte[] word = entry[0];
+                byte[] lemma = entry[1];
+                int prefix = sharedPrefix(word, lemma);
+                out.writeByte(word.length);
+                out.write(word);
+                out.writeByte(prefix);
+                out.writeByte(lemma.length - prefix);
+                out.write(lemma, prefix, lemma.length - prefix);
+            }
+        }
+        return entries.size();
+    }
+
+    // Shared leading bytes, never splitting a UTF-8 sequence
+    private static int sharedPrefix(byte[] word, byte[] lemma) {
+        int shared = 0;
+        int limit = Math.min(Math.min(word.length, lemma.length), MAX_BYTES);
+        while (shared < limit && word[shared] == lemma[shared]) {
+            shared++;
+        }
+        while (shared > 0 && shared < lemma.length && (lemma[shared] & 0xC0) == 0x80) {
+            shared--;
+        }
+        return shared;
+    }
+}
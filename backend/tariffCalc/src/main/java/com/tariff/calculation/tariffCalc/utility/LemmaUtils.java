@@ -1,70 +1,86 @@
 package com.tariff.calculation.tariffCalc.utility;
 
-import opennlp.tools.lemmatizer.DictionaryLemmatizer;
-
 import java.io.InputStream;
+import java.net.URL;
+import java.util.regex.Pattern;
 
 import io.github.cdimascio.dotenv.Dotenv;
 
 public class LemmaUtils {
 
-    private static final DictionaryLemmatizer lemmatizer;
-    
-    static {
-        try {
-            
-            InputStream dictLemmatizer = LemmaUtils.class.getResourceAsStream("/models/en-lemmatizer.dict");
-            lemmatizer = new DictionaryLemmatizer(dictLemmatizer);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // Written at build time by LemmaDictionaryCompiler from the text dictionary
+    public static final String COMPACT_DICTIONARY = "/models/en-lemmatizer-nouns.bin";
+    public static final String OPENNLP_DICTIONARY = "/models/en-lemmatizer.dict";
+
+    // Loaded on first use, so reading config through getEnvOrDotenv does not pull in the dictionary
+    private static final class LemmatizerHolder {
+        private static final Lemmatizer lemmatizer = load();
 
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to load OpenNLP models", e);
+        // The memory-mapped compiled table if the build produced one, else the OpenNLP text dictionary
+        private static Lemmatizer load() {
+            try {
+                URL compact = LemmaUtils.class.getResource(COMPACT_DICTIONARY);
+                if (compact != null) {
+                    return CompactLemmatizer.map(compact);
+                }
+                try (InputStream dictLemmatizer = LemmaUtils.class.getResourceAsStream(OPENNLP_DICTIONARY)) {
+                    return new OpenNlpLemmatizer(dictLemmatizer);
+                }
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to load OpenNLP models", e);
+            }
         }
     }
     
+    // .env is read from disk once, the first time a key is missing from the environment
+    private static final class DotenvHolder {
+        private static final Dotenv DOTENV = load();
+
+        private static Dotenv load() {
+            try {
+                return Dotenv.load();
+            } catch (Exception e) {
+                return null;
+            }
+        }
+    }
+
     public static String getEnvOrDotenv(String key) {
         String value = System.getenv(key);
         if (value != null) return value;
-        try {
-            Dotenv dotenv = Dotenv.load();
-            return dotenv.get(key);
-        } catch (Exception e) {
-            return null;
-        }
+        Dotenv dotenv = DotenvHolder.DOTENV;
+        return dotenv == null ? null : dotenv.get(key);
     }
 
     /**
      * Returns the lemma (singular) of a plural noun, or original if the word is already singular
-     * Uses the en-lemmatizer.dict from OpenNLP
+     * Uses the en-lemmatizer.dict from OpenNLP, compiled to a compact table when available
      */
     public static String toSingular(String nounPlural) {
+        return toSingular(nounPlural, LemmatizerHolder.lemmatizer);
+    }
+
+    public static String toSingular(String nounPlural, Lemmatizer lemmatizer) {
         if (nounPlural == null || nounPlural.isBlank()) {
             return nounPlural;
         }
 
-    // split phrase into words
-    String[] words = nounPlural.split("\\s+");
-    StringBuilder singularPhrase = new StringBuilder();
+        // split phrase into words, lemmatization works word by word, not on entire phrases
+        String[] words = WHITESPACE.split(nounPlural.trim());
 
-    for (String word : words) { // lemmatization works word by word, not on entire phrases
-        
-        // treat each word as plural noun for the lemmatizer
-        String[] tokens = new String[]{word}; // OpenNLP’s DictionaryLemmatizer expects arrays of tokens, not a single string
-        String[] tags = new String[]{"NNS"}; // manually tag as plural (NNS = plural noun)
-
-        // lemmatizer.lemmatize(tokens, tags):
-        // - returns an array of lemmas, which is the singular form of each word in our case
-        // - if no match is found, it returns "O"
-        String[] lemmas = lemmatizer.lemmatize(tokens, tags);
-        if (lemmas != null && lemmas.length > 0 && !lemmas[0].equals("O")) {
-            singularPhrase.append(lemmas[0]);
-        } else {
-            singularPhrase.append(word); // just keep the original word if unknown (words that are already singular)
+        // treat every word as a plural noun (NNS), the lemma is the singular form
+        StringBuilder singularPhrase = new StringBuilder(nounPlural.length());
+        for (int i = 0; i < words.length; i++) {
+            if (i > 0) {
+                singularPhrase.append(' ');
+            }
+            String lemma = lemmatizer.singular(words[i]);
+            singularPhrase.append(lemma != null ? lemma : words[i]); // keep the original word if unknown (already singular)
         }
 
-        singularPhrase.append(" ");
-    }
-
-        return singularPhrase.toString().trim();
+        return singularPhrase.toString();
     }
 
     // for quick testing
@@ -0,0 +1,15 @@
+package com.tariff.calculation.tariffCalc.utility;
+
+/*
+ * Noun dictionary behind LemmaUtils.toSingular. Implementations are thread safe.
+ */
+public interface Lemmatizer {
+
+    /*
+     * @Param word A single lower case word
+     *
+     * @return the singular of the word as a plural noun, or null if the
+     * dictionary has no plural noun entry for it
+     */
+    public String singular(String word);
+}
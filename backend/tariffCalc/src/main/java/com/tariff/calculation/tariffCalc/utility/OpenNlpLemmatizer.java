@@ -0,0 +1,27 @@
+package com.tariff.calculation.tariffCalc.utility;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import opennlp.tools.lemmatizer.DictionaryLemmatizer;
+
+/*
+ * The full OpenNLP text dictionary, parsed into a map of strings on load.
+ * Kept as the fallback when no compiled dictionary is on the classpath.
+ */
+public final class OpenNlpLemmatizer implements Lemmatizer {
+
+    private static final String[] PLURAL_NOUN = { "NNS" };
+
+    private final DictionaryLemmatizer lemmatizer;
+
+    public OpenNlpLemmatizer(InputStream dictionary) throws IOException {
+        this.lemmatizer = new DictionaryLemmatizer(dictionary);
+    }
+
+    public String singular(String word) {
+        String[] lemmas = lemmatizer.lemmatize(new String[] { word }, PLURAL_NOUN);
+        // "O" means no match
+        return lemmas == null || lemmas.length == 0 || lemmas[0].equals("O") ? null : lemmas[0];
+    }
+}
@@ -0,0 +1,43 @@
+package com.tariff.calculation.tariffCalc.utility;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/*
+ * One tariff.request.phase timer per phase of a request, tagged with the
+ * operation and the phase name, registered up front so recording is a map
+ * lookup and no meter is looked up per request.
+ *
+ * Phases are wall time of that step. The upstream and persistence phases are
+ * recorded where they happen, so they are also part of the item or db phase
+ * that triggered them.
+ */
+public class PhaseTimers {
+
+    public static final String COUNTRY = "country";
+    public static final String ITEM = "item";
+    public static final String DB = "db";
+    public static final String UPSTREAM = "upstream";
+    public static final String PERSISTENCE = "persistence";
+    public static final String RESPONSE = "response";
+
+    private final Map<String, Timer> timers = new HashMap<>();
+
+    public PhaseTimers(MeterRegistry meterRegistry, String operation) {
+        for (String phase : new String[] { COUNTRY, ITEM, DB, UPSTREAM, PERSISTENCE, RESPONSE }) {
+            timers.put(phase, Timer.builder("tariff.request.phase")
+                    .description("Time spent in each phase of a tariff request")
+                    .tag("operation", operation)
+                    .tag("phase", phase)
+                    .register(meterRegistry));
+        }
+    }
+
+    public <T> T record(String phase, Supplier<T> step) {
+        return timers.get(phase).record(step);
+    }
+}
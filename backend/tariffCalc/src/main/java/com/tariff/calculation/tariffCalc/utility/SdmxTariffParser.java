@@ -0,0 +1,306 @@
+package com.tariff.calculation.tariffCalc.utility;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/*
+ * Streaming reader for the SDMX-JSON responses of the WITS tariff API.
+ *
+ * Reads the observations of every series in dataSets and the time dimension of
+ * structure in one pass over the stream, straight into primitive arrays, without
+ * binding the WitsDTO tree or boxing a single rate. Either section may come
+ * first: observations are kept as (time index, rate) pairs and only mapped to
+ * dates once the whole document has been read.
+ *
+ * {
+ *   "dataSets": [ { "series": { "0:0:0:0:0": { "observations": { "0": [30.29, ...] } } } } ],
+ *   "structure": { "dimensions": { "observation": [ { "values": [ { "start": "1989-01-01T00:00:00" } ] } ] } }
+ * }
+ *
+ * When several series report the same period, the first one in the document wins.
+ */
+public final class SdmxTariffParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private SdmxTariffParser() {
+    }
+
+    /*
+     * Observations of one response, sorted by date.
+     */
+    public record Observations(int[] epochDays, double[] rates) {
+
+        public int size() {
+            return rates.length;
+        }
+
+        public LocalDate date(int index) {
+            return LocalDate.ofEpochDay(epochDays[index]);
+        }
+    }
+
+    /*
+     * @Param body The response body, left open for the caller to close
+     *
+     * @return the observations, or null if the response has no dataSets or no
+     * time dimension to date them with
+     */
+    public static Observations parse(InputStream body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            Reader reader = new Reader();
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("dataSets".equals(field)) {
+                    reader.readDataSets(parser);
+                } else if ("structure".equals(field)) {
+                    reader.readStructure(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return reader.result();
+        }
+    }
+
+    /*
+     * Parses the date part of an SDMX period start such as "1989-01-01T00:00:00".
+     */
+    static int epochDay(String start) {
+        if (start.length() >= 10 && start.charAt(4) == '-' && start.charAt(7) == '-') {
+            int year = digits(start, 0, 4);
+            int month = digits(start, 5, 7);
+            int day = digits(start, 8, 10);
+            if (year >= 0 && month >= 0 && day >= 0) {
+                return (int) LocalDate.of(year, month, day).toEpochDay();
+            }
+        }
+        // Plain year periods, e.g. "1989"
+        return (int) LocalDate.of(Integer.parseInt(start.trim()), 1, 1).toEpochDay();
+    }
+
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static final class Reader {
+        private boolean sawDataSets;
+        private int[] timeIndexes = new int[64];
+        private double[] rates = new double[64];
+        private int count;
+        private int[] periods;
+
+        private void readDataSets(JsonParser parser) throws IOException {
+            if (parser.currentToken() != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                return;
+            }
+            sawDataSets = true;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    if ("series".equals(field) && parser.currentToken() == JsonToken.START_OBJECT) {
+                        readSeries(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+
+        // { "0:0:0:0:0": { "observations": {...} }, "0:1:0:0:0": {...} }
+        private void readSeries(JsonParser parser) throws IOException {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    if ("observations".equals(field) && parser.currentToken() == JsonToken.START_OBJECT) {
+                        readObservations(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+
+        // { "0": [30.29, 0, ...], "1": [29.5, ...] }, the first element is the rate
+        private void readObservations(JsonParser parser) throws IOException {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                int timeIndex = Integer.parseInt(parser.currentName());
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                JsonToken first = parser.nextToken();
+                if (first == JsonToken.VALUE_NUMBER_FLOAT || first == JsonToken.VALUE_NUMBER_INT) {
+                    add(timeIndex, parser.getDoubleValue());
+                } else if (first == JsonToken.VALUE_STRING && !parser.getText().isBlank()) {
+                    add(timeIndex, Double.parseDouble(parser.getText()));
+                }
+                // Rest of the observation array (attributes), if any
+                JsonToken token = first;
+                while (token != JsonToken.END_ARRAY) {
+                    parser.skipChildren();
+                    token = parser.nextToken();
+                }
+            }
+        }
+
+        private void add(int timeIndex, double rate) {
+            if (count == rates.length) {
+                timeIndexes = Arrays.copyOf(timeIndexes, count * 2);
+                rates = Arrays.copyOf(rates, count * 2);
+            }
+            timeIndexes[count] = timeIndex;
+            rates[count] = rate;
+            count++;
+        }
+
+        private void readStructure(JsonParser parser) throws IOException {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("dimensions".equals(field) && parser.currentToken() == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String dimension = parser.currentName();
+                        parser.nextToken();
+                        if ("observation".equals(dimension) && parser.currentToken() == JsonToken.START_ARRAY) {
+                            readObservationDimensions(parser);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        // Uses the dimension with role "time" (or id TIME_PERIOD), else the first one
+        private void readObservationDimensions(JsonParser parser) throws IOException {
+            int[] first = null;
+            int[] time = null;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                int[] values = null;
+                boolean isTime = false;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken token = parser.nextToken();
+                    if ("values".equals(field) && token == JsonToken.START_ARRAY) {
+                        values = readPeriods(parser);
+                    } else if (("role".equals(field) && "time".equals(parser.getText()))
+                            || ("id".equals(field) && "TIME_PERIOD".equals(parser.getText()))) {
+                        isTime = true;
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                if (first == null) {
+                    first = values;
+                }
+                if (isTime && time == null) {
+                    time = values;
+                }
+            }
+            periods = time != null ? time : first;
+        }
+
+        // [ { "start": "1989-01-01T00:00:00", "end": ..., "id": "1989" }, ... ], values that are not dates
+        // (other dimensions such as FREQ "A") are kept as missing so they never fail the parse
+        private int[] readPeriods(JsonParser parser) throws IOException {
+            List<Integer> days = new ArrayList<>();
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                String start = null;
+                String id = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    if ("start".equals(field)) {
+                        start = parser.getValueAsString();
+                    } else if ("id".equals(field)) {
+                        id = parser.getValueAsString();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                String period = start != null ? start : id;
+                days.add(period == null ? null : parsePeriod(period));
+            }
+            int[] result = new int[days.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = days.get(i) == null ? Integer.MIN_VALUE : days.get(i);
+            }
+            return result;
+        }
+
+        private static Integer parsePeriod(String period) {
+            try {
+                return epochDay(period);
+            } catch (NumberFormatException | DateTimeException e) {
+                return null;
+            }
+        }
+
+        private Observations result() {
+            if (!sawDataSets || periods == null) {
+                return null;
+            }
+            // First series to report a period wins, periods without a date are dropped
+            boolean[] seen = new boolean[periods.length];
+            long[] packed = new long[count];
+            double[] values = new double[count];
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                int timeIndex = timeIndexes[i];
+                if (timeIndex < 0 || timeIndex >= periods.length || seen[timeIndex]
+                        || periods[timeIndex] == Integer.MIN_VALUE) {
+                    continue;
+                }
+                seen[timeIndex] = true;
+                // epoch day in the high bits, position in the low bits, so sorting orders by date
+                packed[kept] = ((long) periods[timeIndex] << 32) | kept;
+                values[kept] = rates[i];
+                kept++;
+            }
+            long[] order = Arrays.copyOf(packed, kept);
+            Arrays.sort(order);
+            int[] epochDays = new int[kept];
+            double[] sortedRates = new double[kept];
+            for (int i = 0; i < kept; i++) {
+                epochDays[i] = (int) (order[i] >> 32);
+                sortedRates[i] = values[(int) order[i]];
+            }
+            return new Observations(epochDays, sortedRates);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.tariff.calculation.tariffCalc.utility;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/*
+ * Keyed registry of in-flight loads. The first caller for a key runs the loader,
+ * every caller that arrives while it is still running waits for and shares that
+ * same result (or exception) instead of starting its own upstream call.
+ *
+ * Loaders should re-check the database before going upstream: a caller that
+ * arrives just after a load finished starts a new flight, and should find the
+ * rows the previous one persisted.
+ *
+ * Exposed as tariff.upstream.singleflight.* meters tagged with the flight name.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        FunctionCounter.builder("tariff.upstream.singleflight.executions", executions, LongAdder::sum)
+                .description("Loads that actually ran")
+                .tag("flight", name)
+                .register(meterRegistry);
+        FunctionCounter.builder("tariff.upstream.singleflight.coalesced", coalesced, LongAdder::sum)
+                .description("Requests that joined a load already in flight")
+                .tag("flight", name)
+                .register(meterRegistry);
+        Gauge.builder("tariff.upstream.singleflight.in.flight", inFlight, ConcurrentHashMap::size)
+                .description("Loads currently running")
+                .tag("flight", name)
+                .register(meterRegistry);
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+
+        executions.increment();
+        try {
+            V value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    private V await(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            // Hand the waiters the leader's own exception so callers can keep catching ApiFailureException
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.tariff.calculation.tariffCalc.utility;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Parsing of the free-text rate fields in the Moach tariff-data response.
+ * Kept free of Spring and repositories so it can be benchmarked on its own.
+ */
+public final class TariffRateParser {
+
+    private TariffRateParser() {
+    }
+
+    /*
+     * @Param countriesInfo The "Country" field of the US style tariff_rate,
+     * e.g. "Free (A+,AU,BH)"
+     *
+     * @return the country codes between the brackets, or an empty list if there are none
+     */
+    public static List<String> specialRateCountryCodes(String countriesInfo) {
+        try {
+            return List.of(countriesInfo.substring(countriesInfo.indexOf('(') + 1, countriesInfo.indexOf(')'))
+                    .split(","));
+        } catch (StringIndexOutOfBoundsException e) {
+            return new ArrayList<>();
+        }
+    }
+
+    /*
+     * @return the special rate as a decimal, 0 when the rate is "free" or missing
+     */
+    public static double specialRate(String countriesInfo) {
+        String customRateInfo;
+        try {
+            customRateInfo = countriesInfo.substring(countriesInfo.indexOf('('))
+                    .trim()
+                    .toLowerCase();
+        } catch (StringIndexOutOfBoundsException e) {
+            customRateInfo = "0.0";
+        }
+
+        // Stores rateInfo as decimal as it is a percentage initially
+        if (customRateInfo.contains("%")) {
+            customRateInfo = customRateInfo.substring(0, customRateInfo.indexOf('%'));
+        }
+        return customRateInfo.equals("free") ? 0 : Double.parseDouble(customRateInfo) / 100.0;
+    }
+
+    /*
+     * @Param generalDutyRate The "General Rate of Duty" field
+     */
+    public static double generalRate(String generalDutyRate) {
+        String generalRateInfo = generalDutyRate.toLowerCase();
+        return !generalRateInfo.equals("free") ? Double.parseDouble(generalRateInfo) : 0.0;
+    }
+
+    /*
+     * @Param tariffRate The "Rate" column of a tableData row, e.g. "5%" or "Free"
+     *
+     * @return the percentage before the % sign, 0 when there is none
+     */
+    public static double regionRate(String tariffRate) {
+        String preProcessed = tariffRate.trim();
+        String regionTariffRate = preProcessed.contains("%") ? preProcessed.substring(0, preProcessed.indexOf('%'))
+                : "";
+        return "".equals(regionTariffRate) ? 0.0 : Double.parseDouble(regionTariffRate);
+    }
+
+    /*
+     * @Param country The "Applicable Country" column, e.g. "ASEAN: Brunei, Cambodia"
+     *
+     * @return the untrimmed country names
+     */
+    public static List<String> applicableCountryNames(String country) {
+        return List.of(country
+                .replaceAll("ASEAN:", "")
+                .trim()
+                .split(","));
+    }
+}
@@ -0,0 +1,97 @@
+package com.tariff.calculation.tariffCalc.utility;
+
+import java.util.Arrays;
+
+import com.tariff.calculation.tariffCalc.utility.SdmxTariffParser.Observations;
+
+/*
+ * Binary encoding of one tariff history (dates and rates sorted by date) for the
+ * compact storage mode.
+ *
+ * Layout: a version byte, the observation count, then per observation the change
+ * in epoch day and the change in rate from the previous one. Rates are stored as
+ * fixed point with 4 decimals. Every number is a zigzag varint, so a yearly series
+ * with slowly moving rates costs about 3-4 bytes per observation.
+ */
+public final class TariffSeriesCodec {
+
+    private static final byte VERSION = 1;
+    private static final double RATE_SCALE = 10_000.0;
+
+    private TariffSeriesCodec() {
+    }
+
+    public static byte[] encode(Observations observations) {
+        int size = observations.size();
+        // Worst case: 10 bytes per varint
+        byte[] out = new byte[1 + 5 + size * 20];
+        int pos = 0;
+        out[pos++] = VERSION;
+        pos = writeVarint(out, pos, size);
+
+        long previousDay = 0;
+        long previousRate = 0;
+        for (int i = 0; i < size; i++) {
+            long day = observations.epochDays()[i];
+            long rate = Math.round(observations.rates()[i] * RATE_SCALE);
+            pos = writeVarint(out, pos, zigzag(day - previousDay));
+            pos = writeVarint(out, pos, zigzag(rate - previousRate));
+            previousDay = day;
+            previousRate = rate;
+        }
+        return Arrays.copyOf(out, pos);
+    }
+
+    public static Observations decode(byte[] encoded) {
+        if (encoded == null || encoded.length == 0 || encoded[0] != VERSION) {
+            throw new IllegalArgumentException("Unsupported tariff series encoding");
+        }
+        int[] pos = { 1 };
+        int size = (int) readVarint(encoded, pos);
+        int[] epochDays = new int[size];
+        double[] rates = new double[size];
+
+        long day = 0;
+        long rate = 0;
+        for (int i = 0; i < size; i++) {
+            day += unzigzag(readVarint(encoded, pos));
+            rate += unzigzag(readVarint(encoded, pos));
+            epochDays[i] = (int) day;
+            rates[i] = rate / RATE_SCALE;
+        }
+        return new Observations(epochDays, rates);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int writeVarint(byte[] out, int pos, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static long readVarint(byte[] in, int[] pos) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            if (pos[0] >= in.length || shift > 63) {
+                throw new IllegalArgumentException("Truncated tariff series");
+            }
+            byte b = in[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.tariff.calculation.tariffCalc.warmup;
+
+public enum WarmupStatus {
+    PENDING,
+    DONE,
+    FAILED
+}
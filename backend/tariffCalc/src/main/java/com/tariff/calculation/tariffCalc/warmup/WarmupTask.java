@@ -0,0 +1,55 @@
+package com.tariff.calculation.tariffCalc.warmup;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * One (reporter, item) combination of the warm-up crawl and how far it got.
+ * Persisted so a crawl interrupted by a restart or its time budget picks up
+ * where it stopped.
+ *
+ * target is "hs:<code>" for a stored HS code or "item:<name>" for an item name.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_warmup_task",
+        columnNames = {"reportingCountryNumber", "target"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WarmupTask {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    private int reportingCountryNumber;
+
+    private String target;
+
+    @Enumerated(EnumType.STRING)
+    private WarmupStatus status;
+
+    private int attempts;
+
+    @Column(length = 500)
+    private String lastError;
+
+    private LocalDateTime completedAt;
+
+    public WarmupTask(int reportingCountryNumber, String target) {
+        this.reportingCountryNumber = reportingCountryNumber;
+        this.target = target;
+        this.status = WarmupStatus.PENDING;
+    }
+}
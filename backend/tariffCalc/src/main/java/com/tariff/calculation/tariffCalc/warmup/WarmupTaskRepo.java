@@ -0,0 +1,6 @@
+package com.tariff.calculation.tariffCalc.warmup;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface WarmupTaskRepo extends JpaRepository<WarmupTask, Integer> {
+}
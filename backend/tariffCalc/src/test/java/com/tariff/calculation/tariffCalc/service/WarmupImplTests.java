@@ -0,0 +1,109 @@
+package com.tariff.calculation.tariffCalc.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.sun.net.httpserver.HttpServer;
+import com.tariff.calculation.tariffCalc.country.Country;
+import com.tariff.calculation.tariffCalc.country.CountryDirectory;
+import com.tariff.calculation.tariffCalc.dto.WarmupStatusDTO;
+import com.tariff.calculation.tariffCalc.item.Item;
+import com.tariff.calculation.tariffCalc.item.ItemRepo;
+import com.tariff.calculation.tariffCalc.tariff.TariffRepo;
+
+/*
+ * Runs the warm-up crawler against a local stub of the Moach tariff-data endpoint.
+ */
+@SpringBootTest
+class WarmupImplTests {
+
+    private static final int REPORTER = 156;
+    private static final int HS_CODE = 640411;
+
+    private static final AtomicInteger moachCalls = new AtomicInteger();
+    private static final HttpServer stub = startStub();
+
+    @Autowired
+    private WarmupService warmupService;
+
+    @Autowired
+    private ItemRepo itemRepo;
+
+    @Autowired
+    private TariffRepo tariffRepo;
+
+    @Autowired
+    private CountryDirectory countryDirectory;
+
+    @DynamicPropertySource
+    static void upstream(DynamicPropertyRegistry registry) {
+        String baseUrl = "http://localhost:" + stub.getAddress().getPort();
+        registry.add("moach.base-url", () -> baseUrl);
+        registry.add("wits.base-url", () -> baseUrl + "/wits/");
+        registry.add("tariff.warmup.reporters", () -> String.valueOf(REPORTER));
+        registry.add("tariff.warmup.include-custom-reporters", () -> "false");
+        registry.add("tariff.warmup.hs-codes", () -> String.valueOf(HS_CODE));
+        registry.add("tariff.warmup.min-interval", () -> "0ms");
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.stop(0);
+    }
+
+    @Test
+    void runPreloadsTariffsAndResumesFromStoredProgress() {
+        Item item = itemRepo.save(new Item(HS_CODE, "tennis shoe" + REPORTER, new ArrayList<>()));
+        Country reporter = countryDirectory.findByNumber(REPORTER).orElseThrow();
+
+        assertTrue(warmupService.run());
+
+        assertTrue(tariffRepo.existsByReportingCountryAndItem(reporter, item));
+        assertEquals(1, moachCalls.get());
+        WarmupStatusDTO status = warmupService.getStatus();
+        assertEquals(1, status.total());
+        assertEquals(1, status.done());
+        assertEquals(0, status.pending());
+
+        // Everything is done, so the next run starts a new cycle and is answered from the database
+        assertTrue(warmupService.run());
+        assertEquals(1, moachCalls.get());
+        assertEquals(1, warmupService.getStatus().done());
+    }
+
+    private static HttpServer startStub() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/tariff-data", (exchange) -> {
+                moachCalls.incrementAndGet();
+                byte[] body;
+                try (InputStream fixture = WarmupImplTests.class.getResourceAsStream("/fixtures/moach-tariff-data.json")) {
+                    body = fixture.readAllBytes();
+                }
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
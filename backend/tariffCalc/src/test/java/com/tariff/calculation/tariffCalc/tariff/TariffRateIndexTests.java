@@ -0,0 +1,169 @@
+package com.tariff.calculation.tariffCalc.tariff;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+
+import com.tariff.calculation.tariffCalc.country.Country;
+import com.tariff.calculation.tariffCalc.item.Item;
+
+/*
+ * Exercises the open-addressing table behind TariffRateIndex directly, without
+ * a Spring context or database.
+ */
+class TariffRateIndexTests {
+
+    private static final int REPORTER = 156;
+    private static final int PARTNER = 702;
+    private static final int WORLD = 0;
+    private static final int ITEM = 640411;
+    private static final LocalDate DAY = LocalDate.of(2024, 1, 1);
+
+    @Test
+    void putThenLookupReturnsTheRow() {
+        TariffRateIndex index = new TariffRateIndex(1 << 20);
+        index.put(tariff(1, REPORTER, PARTNER, ITEM, 5.0, "MFN", DAY));
+
+        IndexedRate rate = index.lookup(REPORTER, PARTNER, ITEM);
+        assertEquals(new IndexedRate(1, PARTNER, 5.0, "MFN", DAY), rate);
+        assertNull(index.lookup(REPORTER, WORLD, ITEM));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void olderRowDoesNotReplaceNewerOne() {
+        TariffRateIndex index = new TariffRateIndex(1 << 20);
+        index.put(tariff(2, REPORTER, PARTNER, ITEM, 4.0, "MFN", DAY));
+        index.put(tariff(1, REPORTER, PARTNER, ITEM, 9.0, "MFN", DAY.minusDays(30)));
+
+        assertEquals(2, index.lookup(REPORTER, PARTNER, ITEM).tariffId());
+    }
+
+    @Test
+    void aliasFollowsTheTargetRow() {
+        TariffRateIndex index = new TariffRateIndex(1 << 20);
+        index.put(tariff(1, REPORTER, WORLD, ITEM, 7.5, "World", DAY));
+        index.alias(REPORTER, PARTNER, ITEM, WORLD);
+
+        IndexedRate rate = index.lookup(REPORTER, PARTNER, ITEM);
+        assertEquals(1, rate.tariffId());
+        assertEquals(WORLD, rate.partnerCountryNumber());
+
+        // A refreshed world row is picked up through the alias
+        index.put(tariff(2, REPORTER, WORLD, ITEM, 6.0, "World", DAY.plusDays(1)));
+        assertEquals(6.0, index.lookup(REPORTER, PARTNER, ITEM).percentageRate());
+
+        // Removing the target makes the alias stop resolving
+        index.remove(tariff(2, REPORTER, WORLD, ITEM, 6.0, "World", DAY.plusDays(1)));
+        assertNull(index.lookup(REPORTER, PARTNER, ITEM));
+    }
+
+    @Test
+    void aliasNeverReplacesAPartnersOwnRate() {
+        TariffRateIndex index = new TariffRateIndex(1 << 20);
+        index.put(tariff(1, REPORTER, WORLD, ITEM, 7.5, "World", DAY));
+        index.put(tariff(2, REPORTER, PARTNER, ITEM, 0.0, "FTA", DAY));
+        index.alias(REPORTER, PARTNER, ITEM, WORLD);
+
+        assertEquals(2, index.lookup(REPORTER, PARTNER, ITEM).tariffId());
+    }
+
+    @Test
+    void removeThenPutReusesTheSlot() {
+        TariffRateIndex index = new TariffRateIndex(1 << 20);
+        Tariff first = tariff(1, REPORTER, PARTNER, ITEM, 5.0, "MFN", DAY);
+        index.put(first);
+
+        // Only the row currently indexed for the key is removed
+        index.remove(tariff(99, REPORTER, PARTNER, ITEM, 5.0, "MFN", DAY));
+        assertNotNull(index.lookup(REPORTER, PARTNER, ITEM));
+
+        index.remove(first);
+        assertNull(index.lookup(REPORTER, PARTNER, ITEM));
+        assertEquals(0, index.size());
+
+        index.put(tariff(2, REPORTER, PARTNER, ITEM, 3.0, "MFN", DAY));
+        assertEquals(new IndexedRate(2, PARTNER, 3.0, "MFN", DAY), index.lookup(REPORTER, PARTNER, ITEM));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void growsPastThreeQuarterLoad() {
+        TariffRateIndex index = new TariffRateIndex(1 << 20);
+        int count = 5000;
+        for (int i = 0; i < count; i++) {
+            index.put(tariff(i + 1, REPORTER, PARTNER, ITEM + i, i, "Rate " + (i % 10), DAY));
+        }
+
+        assertEquals(count, index.size());
+        for (int i = 0; i < count; i++) {
+            IndexedRate rate = index.lookup(REPORTER, PARTNER, ITEM + i);
+            assertEquals(i + 1, rate.tariffId());
+            assertEquals(i, rate.percentageRate());
+            assertEquals("Rate " + (i % 10), rate.description());
+        }
+    }
+
+    @Test
+    void versionOnlyMovesWhenAnAnswerChanges() {
+        TariffRateIndex index = new TariffRateIndex(1 << 20);
+        long start = index.version();
+
+        index.put(tariff(1, REPORTER, PARTNER, ITEM, 5.0, "MFN", DAY));
+        index.put(tariff(1, REPORTER, PARTNER, ITEM, 5.0, "MFN", DAY));
+        assertEquals(start, index.version());
+
+        index.put(tariff(1, REPORTER, PARTNER, ITEM, 6.0, "MFN", DAY));
+        long afterRateChange = index.version();
+        assertTrue(afterRateChange > start);
+
+        index.remove(tariff(1, REPORTER, PARTNER, ITEM, 6.0, "MFN", DAY));
+        long afterRemove = index.version();
+        assertTrue(afterRemove > afterRateChange);
+
+        index.clear();
+        assertTrue(index.version() > afterRemove);
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void overflowClearsTheIndexAndBumpsTheVersion() {
+        TariffRateIndex index = new TariffRateIndex(4);
+        for (int i = 0; i < 4; i++) {
+            index.put(tariff(i + 1, REPORTER, PARTNER, ITEM + i, 1.0, "MFN", DAY));
+        }
+        long full = index.version();
+        assertEquals(4, index.size());
+
+        index.put(tariff(5, REPORTER, PARTNER, ITEM + 4, 1.0, "MFN", DAY));
+
+        assertTrue(index.version() > full);
+        assertEquals(1, index.size());
+        assertNull(index.lookup(REPORTER, PARTNER, ITEM));
+        assertEquals(5, index.lookup(REPORTER, PARTNER, ITEM + 4).tariffId());
+    }
+
+    private static Tariff tariff(int id, int reporter, int partner, int itemCode, double rate, String description,
+            LocalDate localDate) {
+        Tariff tariff = new Tariff(country(reporter), country(partner), item(itemCode), rate, description, localDate);
+        tariff.setId(id);
+        return tariff;
+    }
+
+    private static Country country(int number) {
+        Country country = new Country();
+        country.setCountryNumber(number);
+        return country;
+    }
+
+    private static Item item(int itemCode) {
+        Item item = new Item();
+        item.setItemCode(itemCode);
+        return item;
+    }
+}
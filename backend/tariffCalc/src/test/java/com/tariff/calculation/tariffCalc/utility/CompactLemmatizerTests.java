@@ -0,0 +1,85 @@
+package com.tariff.calculation.tariffCalc.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/*
+ * Compiles a small synthetic OpenNLP dictionary with LemmaDictionaryCompiler
+ * and checks that CompactLemmatizer answers like OpenNlpLemmatizer on the
+ * same file. The one intended difference: a plural noun whose lemma is the
+ * word itself is left out of the compact table, so it answers null where
+ * OpenNLP answers the word.
+ */
+class CompactLemmatizerTests {
+
+    private static final List<String> DICTIONARY = List.of(
+            "boxes\tNNS\tbox",
+            "wolves\tNNS\twolf",
+            "mice\tNNS\tmouse",
+            "children\tNNS\tchild",
+            "axes\tNNS\tax#axis",
+            "sheep\tNNS\tsheep",
+            "cafés\tNNS\tcafé",
+            "naïves\tNNS\tnaïf",
+            "shoes\tNNS\tshoe",
+            "shoes\tNNS\tshoes",
+            "shoes\tNNS\tshoe",
+            "running\tVBG\trun",
+            "box\tNN\tbox",
+            "leaves\tVBZ\tleave",
+            "leaves\tNNS\tleaf");
+
+    private static final List<String> PROBES = List.of(
+            "boxes", "wolves", "mice", "children", "axes", "sheep", "cafés", "naïves", "shoes", "running", "box",
+            "leaves", "unknown", "a", "zzz", "");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void agreesWithOpenNlpOnTheSameDictionary() throws IOException {
+        Path source = directory.resolve("lemmas.dict");
+        Files.write(source, DICTIONARY, StandardCharsets.UTF_8);
+        Path compiled = directory.resolve("lemmas.bin");
+
+        int entries = LemmaDictionaryCompiler.compile(source, compiled);
+        CompactLemmatizer compact = CompactLemmatizer.map(compiled);
+        OpenNlpLemmatizer openNlp;
+        try (InputStream in = Files.newInputStream(source)) {
+            openNlp = new OpenNlpLemmatizer(in);
+        }
+
+        assertEquals(entries, compact.size());
+        for (String word : PROBES) {
+            String expected = openNlp.singular(word);
+            assertEquals(word.equals(expected) ? null : expected, compact.singular(word), word);
+        }
+    }
+
+    @Test
+    void keepsOnlyPluralNounsThatChange() throws IOException {
+        Path source = directory.resolve("lemmas.dict");
+        Files.write(source, DICTIONARY, StandardCharsets.UTF_8);
+        Path compiled = directory.resolve("lemmas.bin");
+
+        LemmaDictionaryCompiler.compile(source, compiled);
+        CompactLemmatizer compact = CompactLemmatizer.map(compiled);
+
+        assertEquals("wolf", compact.singular("wolves"));
+        assertEquals("ax", compact.singular("axes"));
+        assertEquals("café", compact.singular("cafés"));
+        assertEquals("leaf", compact.singular("leaves"));
+        assertNull(compact.singular("sheep"));
+        assertNull(compact.singular("running"));
+    }
+}
@@ -0,0 +1,106 @@
+package com.tariff.calculation.tariffCalc.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tariff.calculation.tariffCalc.dto.historicalTariffApiDto.WitsDTO;
+import com.tariff.calculation.tariffCalc.dto.historicalTariffApiDto.dataSets.TariffDataSet;
+import com.tariff.calculation.tariffCalc.dto.historicalTariffApiDto.dataSets.TariffSeriesData;
+import com.tariff.calculation.tariffCalc.dto.historicalTariffApiDto.structure.StartPeriod;
+import com.tariff.calculation.tariffCalc.utility.SdmxTariffParser.Observations;
+
+/*
+ * Checks the streaming WITS parser against the Jackson WitsDTO binding it
+ * replaced, on a recorded response and on hand-written edge cases.
+ */
+class SdmxTariffParserTests {
+
+    @Test
+    void matchesTheWitsDtoBinding() throws IOException {
+        byte[] body = new ClassPathResource("fixtures/wits-tariff-reported.json").getContentAsByteArray();
+
+        Map<LocalDate, Double> expected = viaWitsDto(body);
+        Observations parsed = parse(body);
+
+        assertEquals(expected.size(), parsed.size());
+        int i = 0;
+        for (Map.Entry<LocalDate, Double> entry : expected.entrySet()) {
+            assertEquals(entry.getKey(), parsed.date(i));
+            assertEquals(entry.getValue(), parsed.rates()[i]);
+            i++;
+        }
+    }
+
+    @Test
+    void readsStructureBeforeDataSetsAndKeepsTheFirstSeries() throws IOException {
+        String body = """
+                {
+                  "structure": { "dimensions": { "observation": [
+                    { "id": "FREQ", "values": [ { "id": "A" } ] },
+                    { "id": "TIME_PERIOD", "values": [ { "start": "2001-01-01T00:00:00" }, { "id": "2000" } ] }
+                  ] } },
+                  "dataSets": [ { "series": {
+                    "0:0:0:0:0": { "observations": { "0": [5.5, 0], "1": ["4"] } },
+                    "0:1:0:0:0": { "observations": { "0": [9.9], "2": [1.0] } }
+                  } } ]
+                }
+                """;
+
+        Observations parsed = parse(body.getBytes(StandardCharsets.UTF_8));
+
+        // Sorted by date, index 2 has no period and is dropped, the second series loses index 0
+        assertEquals(2, parsed.size());
+        assertEquals(LocalDate.of(2000, 1, 1), parsed.date(0));
+        assertEquals(4.0, parsed.rates()[0]);
+        assertEquals(LocalDate.of(2001, 1, 1), parsed.date(1));
+        assertEquals(5.5, parsed.rates()[1]);
+    }
+
+    @Test
+    void returnsNullWithoutDataSetsOrTimeDimension() throws IOException {
+        assertNull(parse("{\"structure\":{\"dimensions\":{\"observation\":[{\"values\":[]}]}}}"
+                .getBytes(StandardCharsets.UTF_8)));
+        assertNull(parse("{\"dataSets\":[]}".getBytes(StandardCharsets.UTF_8)));
+        assertNull(parse("[]".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static Observations parse(byte[] body) throws IOException {
+        try (InputStream in = new ByteArrayInputStream(body)) {
+            return SdmxTariffParser.parse(in);
+        }
+    }
+
+    // Date -> rate the way the WitsDTO path read it, first series to report a period wins
+    private static Map<LocalDate, Double> viaWitsDto(byte[] body) throws IOException {
+        // Configured like the Boot ObjectMapper, which ignores unknown properties
+        WitsDTO wits = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .readValue(body, WitsDTO.class);
+        List<StartPeriod> periods = wits.structure().dimensions().observation().get(0).values();
+        Map<Integer, Double> byIndex = new LinkedHashMap<>();
+        for (TariffDataSet dataSet : wits.dataSets()) {
+            for (TariffSeriesData series : dataSet.series().getSeriesData().values()) {
+                series.observations().forEach((index, values) ->
+                        byIndex.putIfAbsent(Integer.parseInt(index), Double.valueOf(values.get(0).toString())));
+            }
+        }
+        Map<LocalDate, Double> byDate = new TreeMap<>();
+        byIndex.forEach((index, rate) ->
+                byDate.put(LocalDate.parse(periods.get(index).start().substring(0, 10)), rate));
+        return byDate;
+    }
+}
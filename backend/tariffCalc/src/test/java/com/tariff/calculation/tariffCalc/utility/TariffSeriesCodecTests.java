@@ -0,0 +1,66 @@
+package com.tariff.calculation.tariffCalc.utility;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.tariff.calculation.tariffCalc.utility.SdmxTariffParser.Observations;
+
+class TariffSeriesCodecTests {
+
+    @Test
+    void roundTripsFallingAndRisingRates() {
+        Observations series = new Observations(
+                new int[] { day(1989), day(1990), day(1995), day(2010), day(2024) },
+                new double[] { 30.29, 12.5, 0.0, 7.1234, -2.5 });
+
+        Observations decoded = TariffSeriesCodec.decode(TariffSeriesCodec.encode(series));
+
+        assertArrayEquals(series.epochDays(), decoded.epochDays());
+        assertArrayEquals(series.rates(), decoded.rates(), 1e-9);
+    }
+
+    @Test
+    void roundTripsDatesBeforeTheEpoch() {
+        Observations series = new Observations(new int[] { day(1960), day(1965) }, new double[] { 5.0, 4.0 });
+
+        Observations decoded = TariffSeriesCodec.decode(TariffSeriesCodec.encode(series));
+
+        assertArrayEquals(series.epochDays(), decoded.epochDays());
+        assertArrayEquals(series.rates(), decoded.rates(), 1e-9);
+    }
+
+    @Test
+    void roundTripsAnEmptySeries() {
+        byte[] encoded = TariffSeriesCodec.encode(new Observations(new int[0], new double[0]));
+
+        assertEquals(2, encoded.length);
+        assertEquals(0, TariffSeriesCodec.decode(encoded).size());
+    }
+
+    @Test
+    void roundsRatesToFourDecimals() {
+        Observations series = new Observations(new int[] { day(2000) }, new double[] { 1.234567 });
+
+        assertEquals(1.2346, TariffSeriesCodec.decode(TariffSeriesCodec.encode(series)).rates()[0], 1e-9);
+    }
+
+    @Test
+    void rejectsUnknownOrTruncatedInput() {
+        byte[] encoded = TariffSeriesCodec.encode(new Observations(new int[] { day(2000) }, new double[] { 3.0 }));
+
+        assertThrows(IllegalArgumentException.class, () -> TariffSeriesCodec.decode(new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> TariffSeriesCodec.decode(new byte[] { 99, 0 }));
+        assertThrows(IllegalArgumentException.class,
+                () -> TariffSeriesCodec.decode(Arrays.copyOf(encoded, encoded.length - 1)));
+    }
+
+    private static int day(int year) {
+        return (int) LocalDate.of(year, 1, 1).toEpochDay();
+    }
+}
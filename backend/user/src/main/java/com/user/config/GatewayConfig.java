@@ -1,5 +1,6 @@
 package com.user.config;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.function.RouterFunction;
@@ -15,6 +16,7 @@ import com.user.Utility;
 import static org.springframework.cloud.gateway.server.mvc.handler.HandlerFunctions.*;
 
 @Configuration
+@EnableConfigurationProperties(ResponseCacheProperties.class)
 public class GatewayConfig {
     
     
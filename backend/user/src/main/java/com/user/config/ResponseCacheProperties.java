@@ -0,0 +1,36 @@
+package com.user.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/*
+ * Which idempotent POST routes the gateway answers from its response cache,
+ * and how much it may keep.
+ */
+@Data
+@ConfigurationProperties(prefix = "gateway.response-cache")
+public class ResponseCacheProperties {
+
+    private boolean enabled = true;
+
+    // Exact request path -> how long a response stays fresh, capped by the
+    // upstream Cache-Control max-age when there is one
+    private Map<String, Duration> routes = new LinkedHashMap<>(Map.of(
+            "/tariff/current", Duration.ofMinutes(10),
+            "/tariff/past", Duration.ofHours(1)));
+
+    private int maxEntries = 10_000;
+
+    // Requests and responses larger than this are passed through uncached
+    private int maxBodyBytes = 256 * 1024;
+
+    // A successful non-GET request under this prefix that is not a cached route
+    // (tariff import, negative cache clear, warm-up run) empties the cache, as it
+    // may change the cached answers
+    private String invalidatePrefix = "/tariff/admin/";
+}
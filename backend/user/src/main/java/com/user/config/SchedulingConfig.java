@@ -0,0 +1,10 @@
+package com.user.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Background flush of the tariff view history buffer
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -2,6 +2,7 @@ package com.user.controller;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,6 +15,7 @@ import com.user.dto.CreateUserDTO;
 import com.user.dto.LoginDTO;
 import com.user.dto.TokenDTO;
 import com.user.security.exception.ApplicationAuthenticationException;
+import com.user.security.exception.HashingUnavailableException;
 import com.user.service.AuthUserService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -39,7 +41,8 @@ public class AuthUserController {
             @ApiResponse(responseCode = "200", description = "Login successful", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = TokenDTO.class))
             }),
-            @ApiResponse(responseCode = "401", description = "Unauthorised", content = @Content)
+            @ApiResponse(responseCode = "401", description = "Unauthorised", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Too many logins at once, retry shortly", content = @Content)
     })
     @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "User login credentials", 
         required = true, content = @Content(mediaType = "application/json", 
@@ -51,6 +54,9 @@ public class AuthUserController {
         try {
             TokenDTO login = authUserService.login(loginDTO);
             return ResponseEntity.ok(login);
+        } catch (HashingUnavailableException e) {
+            log.info(e.getMessage());
+            return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "1").build();
         } catch (ApplicationAuthenticationException | IllegalArgumentException e) {
             log.info(e.getMessage());
             return ResponseEntity.status(401).build();
@@ -63,7 +69,8 @@ public class AuthUserController {
     @Operation(summary = "Register user", responses = {
         @ApiResponse(responseCode = "200", description = "Registration successful, returns authentication token", content = @Content(mediaType = "application/json", schema = @Schema(implementation = TokenDTO.class))),
         @ApiResponse(responseCode = "409", description = "User with that username already exists", content = @Content),
-        @ApiResponse(responseCode = "400", description = "Bad request", content = @Content)
+        @ApiResponse(responseCode = "400", description = "Bad request", content = @Content),
+        @ApiResponse(responseCode = "503", description = "Too many registrations at once, retry shortly", content = @Content)
     })
     @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "User registration details", 
         required = true, content = @Content(mediaType = "application/json", 
@@ -74,6 +81,9 @@ public class AuthUserController {
     public ResponseEntity<TokenDTO> registerUser(@RequestBody CreateUserDTO createUserDTO) {
         try {
             return ResponseEntity.ok(authUserService.createUser(createUserDTO));
+        } catch (HashingUnavailableException e) {
+            log.info(e.getMessage());
+            return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "1").build();
         } catch (IllegalArgumentException e) {
             log.info(e.getMessage());
             return ResponseEntity.status(409).build();
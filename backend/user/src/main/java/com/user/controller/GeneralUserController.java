@@ -1,7 +1,6 @@
 package com.user.controller;
 
 import java.util.List;
-import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,8 +10,10 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.user.dto.HistoryEntryDTO;
 import com.user.service.GeneralUserService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -33,29 +34,37 @@ public class GeneralUserController {
         this.generalUserService = generalUserService;
     }
 
-    // not included in this sprint, will be added in future sprints
-    // @PostMapping("/{username}/history/{tariffId}")
-    // public ResponseEntity<Map<Integer, Integer>> addHistory(@PathVariable String username,
-    //         @PathVariable Integer tariffId) {
-    //     try {
-    //         Map<Integer, Integer> history = generalUserService.addHistory(username, tariffId);
-    //         return ResponseEntity.ok(history);
-    //     } catch (IllegalArgumentException e) {
-    //         return ResponseEntity.badRequest().body(null);
-    //     }
-    // }
+    @Operation(summary = "Add history", description = "Counts a view of the tariff. Views are written to the history in the background, within a few seconds")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "View counted", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Bad request. User not found.", content = @Content)
+    })
+    @PostMapping("/{username}/history/{tariffId}")
+    public ResponseEntity<Void> addHistory(@PathVariable String username, @PathVariable Integer tariffId) {
+        try {
+            generalUserService.addHistory(username, tariffId);
+            return ResponseEntity.accepted().build();
+        } catch (IllegalArgumentException e) {
+            log.info(e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
 
-    // // not included in this sprint, will be added in future sprints
-    // @GetMapping("/{username}/history/{tariffId}")
-    // public ResponseEntity<Map<Integer, Integer>> getHistory(@PathVariable String username,
-    //         @PathVariable Integer tariffId) {
-    //     try {
-    //         Map<Integer, Integer> history = generalUserService.retrieveHistory(username, tariffId);
-    //         return ResponseEntity.ok(history);
-    //     } catch (IllegalArgumentException e) {
-    //         return ResponseEntity.badRequest().body(null);
-    //     }
-    // }
+    @Operation(summary = "Get history", description = "The user's most viewed tariffs, most views first, one page at a time")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "History page returned", content = @Content(mediaType = "application/json")),
+            @ApiResponse(responseCode = "400", description = "Bad request. User not found or invalid page.", content = @Content)
+    })
+    @GetMapping("/{username}/history")
+    public ResponseEntity<List<HistoryEntryDTO>> getHistory(@PathVariable String username,
+            @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "10") int size) {
+        try {
+            return ResponseEntity.ok(generalUserService.retrieveHistory(username, page, size));
+        } catch (IllegalArgumentException e) {
+            log.info(e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
 
     @Operation(summary = "Add pinned tariff", description = "Pins a tariff for the user. Maximum of 3 tariffs can be pinned.")
     @ApiResponses(value = {
@@ -0,0 +1,6 @@
+package com.user.dto;
+
+public record HistoryEntryDTO (
+    Integer tariffId,
+    Integer views
+) {}
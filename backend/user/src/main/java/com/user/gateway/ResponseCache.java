@@ -0,0 +1,50 @@
+package com.user.gateway;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Bounded LRU of cached gateway responses. Entries past their expiry are
+ * dropped when they are next read.
+ */
+public class ResponseCache {
+
+    public record Entry(int status, String contentType, byte[] body, long storedAtMillis, long expiresAtMillis) {
+
+        public boolean isFresh(long nowMillis) {
+            return nowMillis < expiresAtMillis;
+        }
+    }
+
+    private final LinkedHashMap<String, Entry> entries;
+
+    public ResponseCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public synchronized Entry get(String key, long nowMillis) {
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.isFresh(nowMillis)) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    public synchronized void put(String key, Entry entry) {
+        entries.put(key, entry);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+}
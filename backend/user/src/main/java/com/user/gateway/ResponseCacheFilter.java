@@ -0,0 +1,310 @@
+package com.user.gateway;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.user.config.ResponseCacheProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+/*
+ * Answers repeated POSTs to the configured idempotent tariff routes from a
+ * response cache, before they are proxied to tariffCalc.
+ *
+ * The key is the path plus a SHA-256 of the canonical JSON body (object keys
+ * sorted, whitespace dropped), so {"a":1,"b":2} and { "b": 2, "a": 1 } share an
+ * entry. Only 200 responses are stored, for the route TTL or the upstream
+ * max-age if that is shorter, and never when the upstream says no-store,
+ * no-cache or private. A request with Cache-Control: no-cache skips the lookup
+ * and refreshes the entry, no-store bypasses the cache entirely.
+ *
+ * The whole cache is emptied when a write under the invalidate prefix succeeds
+ * (the /tariff/admin/ import, negative cache and warm-up routes), and when a
+ * tariffCalc response carries a newer X-Tariff-Data-Version than any seen
+ * before. tariffCalc bumps that version whenever stored tariffs change, which
+ * also covers changes the gateway cannot see itself, like background refreshes
+ * and imports finishing after their 202. A response built from an older version
+ * than the newest seen is passed on but not stored.
+ *
+ * Runs after Spring Security, so only requests that were let through are
+ * cached. Responses carry X-Cache: HIT or MISS. Lookups are counted in
+ * gateway.cache.requests (tags route, result).
+ */
+@Component
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final String X_CACHE = "X-Cache";
+    private static final String DATA_VERSION = "X-Tariff-Data-Version";
+
+    private final Logger log = LoggerFactory.getLogger(ResponseCacheFilter.class);
+
+    private final ResponseCacheProperties properties;
+    private final ResponseCache cache;
+    private final MeterRegistry meterRegistry;
+    // Newest X-Tariff-Data-Version seen, 0 until the first one arrives
+    private final AtomicLong dataVersion = new AtomicLong();
+    // Canonical form for hashing: map entries sorted by key
+    private final ObjectMapper canonicalMapper = new ObjectMapper()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    public ResponseCacheFilter(ResponseCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.cache = new ResponseCache(properties.getMaxEntries());
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("gateway.cache.size", cache, ResponseCache::size).register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!properties.isEnabled()) {
+            return true;
+        }
+        String path = request.getRequestURI();
+        return !isCachedRoute(request, path) && !path.startsWith(properties.getInvalidatePrefix());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String route = request.getRequestURI();
+        if (!isCachedRoute(request, route)) {
+            filterChain.doFilter(request, response);
+            observeDataVersion(response);
+            if (response.getStatus() < 300 && !"GET".equals(request.getMethod())) {
+                log.info("{} {} may change tariffs, clearing {} cached responses", request.getMethod(), route, cache.size());
+                cache.clear();
+            }
+            return;
+        }
+
+        String requestCacheControl = lowerCase(request.getHeader(HttpHeaders.CACHE_CONTROL));
+        byte[] body = request.getInputStream().readNBytes(properties.getMaxBodyBytes() + 1);
+        String key = body.length > properties.getMaxBodyBytes() || requestCacheControl.contains("no-store")
+                ? null : cacheKey(route, request.getQueryString(), body);
+        if (key == null) {
+            count(route, "bypass");
+            filterChain.doFilter(new CachedBodyRequest(request, body, body.length <= properties.getMaxBodyBytes()), response);
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (!requestCacheControl.contains("no-cache")) {
+            ResponseCache.Entry cached = cache.get(key, now);
+            if (cached != null) {
+                count(route, "hit");
+                writeCached(cached, response, now);
+                return;
+            }
+        }
+        count(route, "miss");
+
+        ContentCachingResponseWrapper recorded = new ContentCachingResponseWrapper(response);
+        recorded.setHeader(X_CACHE, "MISS");
+        filterChain.doFilter(new CachedBodyRequest(request, body, body.length <= properties.getMaxBodyBytes()), recorded);
+        boolean current = observeDataVersion(recorded);
+        Duration ttl = ttl(route, recorded);
+        if (current && recorded.getStatus() == HttpServletResponse.SC_OK && ttl != null
+                && recorded.getContentSize() <= properties.getMaxBodyBytes()) {
+            cache.put(key, new ResponseCache.Entry(recorded.getStatus(), recorded.getContentType(),
+                    recorded.getContentAsByteArray(), now, now + ttl.toMillis()));
+        }
+        recorded.copyBodyToResponse();
+    }
+
+    /*
+     * Clears the cache when the response reports newer tariff data than any
+     * response before it.
+     *
+     * @return false if the response was built from older data than the newest
+     * version seen, so it must not be stored
+     */
+    private boolean observeDataVersion(HttpServletResponse response) {
+        String header = response.getHeader(DATA_VERSION);
+        if (header == null) {
+            return true;
+        }
+        long version;
+        try {
+            version = Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return true;
+        }
+        long previous = dataVersion.getAndAccumulate(version, Math::max);
+        if (previous != 0 && version > previous) {
+            log.info("Tariff data changed (version {} -> {}), clearing {} cached responses", previous, version,
+                    cache.size());
+            cache.clear();
+        }
+        return version >= previous;
+    }
+
+    private boolean isCachedRoute(HttpServletRequest request, String path) {
+        return "POST".equals(request.getMethod()) && properties.getRoutes().containsKey(path);
+    }
+
+    /*
+     * @return the route TTL, shortened to the upstream max-age, or null if the
+     * upstream does not allow the response to be stored
+     */
+    private Duration ttl(String route, HttpServletResponse response) {
+        Duration ttl = properties.getRoutes().get(route);
+        String cacheControl = lowerCase(response.getHeader(HttpHeaders.CACHE_CONTROL));
+        if (cacheControl.contains("no-store") || cacheControl.contains("no-cache") || cacheControl.contains("private")) {
+            return null;
+        }
+        for (String directive : cacheControl.split(",")) {
+            directive = directive.trim();
+            if (directive.startsWith("max-age=")) {
+                try {
+                    Duration maxAge = Duration.ofSeconds(Long.parseLong(directive.substring("max-age=".length())));
+                    if (maxAge.compareTo(ttl) < 0) {
+                        ttl = maxAge;
+                    }
+                } catch (NumberFormatException e) {
+                    // Ignore a malformed max-age and keep the route TTL
+                }
+            }
+        }
+        return ttl.isZero() || ttl.isNegative() ? null : ttl;
+    }
+
+    private void writeCached(ResponseCache.Entry cached, HttpServletResponse response, long now) throws IOException {
+        response.setStatus(cached.status());
+        if (cached.contentType() != null) {
+            response.setContentType(cached.contentType());
+        }
+        response.setHeader(X_CACHE, "HIT");
+        response.setHeader(HttpHeaders.AGE, Long.toString((now - cached.storedAtMillis()) / 1000));
+        response.setContentLength(cached.body().length);
+        response.getOutputStream().write(cached.body());
+    }
+
+    /*
+     * @return route:sha256(canonical body), or null if the body is not JSON
+     */
+    private String cacheKey(String route, String query, byte[] body) {
+        try {
+            byte[] canonical = canonicalMapper.writeValueAsBytes(canonicalMapper.readValue(body, Object.class));
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            if (query != null) {
+                digest.update(query.getBytes(StandardCharsets.UTF_8));
+            }
+            return route + ":" + HexFormat.of().formatHex(digest.digest(canonical));
+        } catch (JsonProcessingException e) {
+            return null;
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void count(String route, String result) {
+        Counter.builder("gateway.cache.requests")
+                .tag("route", route)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static String lowerCase(String header) {
+        return header == null ? "" : header.toLowerCase(Locale.ROOT);
+    }
+
+    /*
+     * Replays the part of the body the filter already read, followed by whatever
+     * it did not read, to the gateway proxy. complete means the filter read the
+     * whole body, so nothing is left in the original stream.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] head;
+        private final boolean complete;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] head, boolean complete) {
+            super(request);
+            this.head = head;
+            this.complete = complete;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            InputStream in = complete
+                    ? new ByteArrayInputStream(head)
+                    : new SequenceInputStream(new ByteArrayInputStream(head), super.getInputStream());
+            return new ServletInputStream() {
+                private boolean finished;
+
+                @Override
+                public int read() throws IOException {
+                    int read = in.read();
+                    finished = read < 0;
+                    return read;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    int read = in.read(buffer, offset, length);
+                    finished = read < 0;
+                    return read;
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return finished;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /*
+                 * A buffered body is always ready, so the listener is called
+                 * straight away. The rest of a larger body is still in the
+                 * blocking original stream, which cannot be read non-blocking.
+                 */
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    if (!complete) {
+                        throw new IllegalStateException(
+                                "Non-blocking reads are only supported for bodies up to max-body-bytes");
+                    }
+                    try {
+                        if (head.length > 0) {
+                            listener.onDataAvailable();
+                        }
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+    }
+}
@@ -13,6 +13,7 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.CollectionTable;
@@ -32,8 +33,10 @@ public class GeneralUser {
     private String username;
     private String hashedPassword;
 
+    // Written by GeneralUserServiceImpl in batches, read top-N through the index
     @ElementCollection
-    @CollectionTable(name = "user_history", joinColumns = @JoinColumn(name = "user_id"))
+    @CollectionTable(name = "user_history", joinColumns = @JoinColumn(name = "user_id"),
+            indexes = @Index(name = "idx_user_history_top", columnList = "user_id, history_value"))
     @MapKeyColumn(name = "history_key")
     @Column(name = "history_value")
     private Map<Integer, Integer> history;
@@ -3,11 +3,16 @@ package com.user.generalUser;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 public interface GeneralUserRepo extends JpaRepository<GeneralUser, Integer> {
 
     Optional<GeneralUser> findById(Integer id);
     Optional<GeneralUser> findByUsername(String username);
 
+    // Only the id, without loading the user and its collections
+    @Query("select u.id from GeneralUser u where u.username = :username")
+    Optional<Integer> findIdByUsername(String username);
+
 
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.user.generalUser;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.stereotype.Component;
+
+/*
+ * In-memory buffer of tariff view counts per (user, tariff), flushed to
+ * user_history in batches by GeneralUserServiceImpl.
+ *
+ * Views go into a striped LongAdder per key, so concurrent views of the same
+ * tariff do not contend. drain() swaps in a fresh generation and waits for the
+ * writers still adding to the old one, so no view is lost or counted twice and
+ * the buffer only ever holds the keys of one flush interval.
+ */
+@Component
+public class HistoryBuffer {
+
+    public record HistoryKey(int userId, int tariffId) {
+    }
+
+    private static final class Generation {
+        private final ConcurrentHashMap<HistoryKey, LongAdder> counts = new ConcurrentHashMap<>();
+        private final LongAdder writers = new LongAdder();
+    }
+
+    private volatile Generation current = new Generation();
+
+    public void record(int userId, int tariffId) {
+        add(new HistoryKey(userId, tariffId), 1);
+    }
+
+    /*
+     * @Param views Added to the pending count of the key, used to put back the
+     * counts of a flush that failed
+     */
+    public void add(HistoryKey key, long views) {
+        while (true) {
+            Generation generation = current;
+            generation.writers.increment();
+            try {
+                // Re-checked after registering as a writer, so drain() either waits for us or we retry on the new generation
+                if (generation == current) {
+                    generation.counts.computeIfAbsent(key, (k) -> new LongAdder()).add(views);
+                    return;
+                }
+            } finally {
+                generation.writers.decrement();
+            }
+        }
+    }
+
+    /*
+     * @return the views recorded since the last drain, per key
+     */
+    public synchronized Map<HistoryKey, Long> drain() {
+        Generation drained = current;
+        current = new Generation();
+        while (drained.writers.sum() != 0) {
+            Thread.onSpinWait();
+        }
+        Map<HistoryKey, Long> counts = new HashMap<>(drained.counts.size());
+        drained.counts.forEach((key, views) -> counts.put(key, views.sum()));
+        return counts;
+    }
+
+    public int pendingKeys() {
+        return current.counts.size();
+    }
+}
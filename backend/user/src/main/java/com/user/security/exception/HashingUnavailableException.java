@@ -0,0 +1,8 @@
+package com.user.security.exception;
+
+// The password hashing executor is saturated, the request should be retried later
+public class HashingUnavailableException extends RuntimeException {
+    public HashingUnavailableException(String message) {
+        super(message);
+    }
+}
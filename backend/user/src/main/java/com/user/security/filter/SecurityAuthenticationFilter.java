@@ -37,7 +37,6 @@ public class SecurityAuthenticationFilter extends OncePerRequestFilter {
         throws ServletException, IOException {
             
         String authenticationHeader = request.getHeader("Authorization");
-        log.info("Authorization header: " + authenticationHeader);
     
         if (authenticationHeader == null) {
             // Authentication token is not present, let's rely on anonymous authentication
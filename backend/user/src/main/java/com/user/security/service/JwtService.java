@@ -1,5 +1,6 @@
 package com.user.security.service;
 
+import java.time.Duration;
 import java.util.Date;
 import java.util.List;
 
@@ -9,32 +10,80 @@ import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.auth0.jwt.interfaces.JWTVerifier;
 import com.user.security.enums.Role;
+import com.user.security.service.VerifiedTokenCache.VerifiedToken;
 import com.user.security.user.AuthUser;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 @Service
 public class JwtService {
     private static final String ROLES_CLAIM = "roles";
     
     private final Algorithm signingAlgo;
+    // Immutable and thread safe, so built once instead of per request
+    private final JWTVerifier jwtVerifier;
+    // The same token comes back on every request of a session, its signature only needs checking once
+    private final VerifiedTokenCache verifiedTokens;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Counter rejected;
+    private final Timer verification;
     
-    public JwtService(@Value("${jwt.signing-secret}") String signingSecret) {
-        // System.out.println("\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n" + signingSecret);
+    public JwtService(@Value("${jwt.signing-secret}") String signingSecret,
+            @Value("${jwt.verified-cache.max-entries:10000}") int maxCachedTokens,
+            @Value("${jwt.verified-cache.ttl:5m}") Duration maxCacheTtl,
+            MeterRegistry meterRegistry) {
         if (signingSecret == null) {
             throw new IllegalArgumentException("WHoops"); 
         }
         this.signingAlgo = Algorithm.HMAC512(signingSecret);
+        this.jwtVerifier = JWT.require(signingAlgo).build();
+        this.verifiedTokens = new VerifiedTokenCache(maxCachedTokens, maxCacheTtl.toMillis());
+        this.cacheHits = Counter.builder("auth.token.cache").tag("result", "hit").register(meterRegistry);
+        this.cacheMisses = Counter.builder("auth.token.cache").tag("result", "miss").register(meterRegistry);
+        this.rejected = Counter.builder("auth.token.rejected").register(meterRegistry);
+        this.verification = Timer.builder("auth.token.verify").register(meterRegistry);
+        Gauge.builder("auth.token.cache.size", verifiedTokens, VerifiedTokenCache::size).register(meterRegistry);
     }
     
+    /*
+     * A token seen before and not yet expired is answered from the cache,
+     * anything else has its signature and claims verified
+     */
     public AuthUser resolveJwtToken(String token) throws JWTVerificationException {
-        
-        JWTVerifier jwtVerifier = JWT.require(signingAlgo).build();
-        DecodedJWT decodedJWT = jwtVerifier.verify(token);
+        long now = System.currentTimeMillis();
+        String tokenHash = VerifiedTokenCache.hash(token);
+        VerifiedToken verified = verifiedTokens.get(tokenHash, now);
+        if (verified != null) {
+            cacheHits.increment();
+            return new AuthUser(verified.userId(), "", verified.roles());
+        }
+        cacheMisses.increment();
+
+        DecodedJWT decodedJWT;
+        long start = System.nanoTime();
+        try {
+            decodedJWT = jwtVerifier.verify(token);
+        } catch (JWTVerificationException e) {
+            rejected.increment();
+            throw e;
+        } finally {
+            verification.record(Duration.ofNanos(System.nanoTime() - start));
+        }
         
         String userId = decodedJWT.getSubject();
         List<Role> roles = decodedJWT.getClaim(ROLES_CLAIM).asList(Role.class);
+        if (roles == null) {
+            roles = List.of();
+        }
+        Date expiresAt = decodedJWT.getExpiresAt();
+        verifiedTokens.put(tokenHash, userId, roles, expiresAt == null ? Long.MAX_VALUE : expiresAt.getTime(), now);
         return new AuthUser(userId, "", roles);
     }
     
@@ -0,0 +1,144 @@
+package com.user.security.service;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import com.user.security.exception.HashingUnavailableException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/*
+ * BCrypt on its own bounded executor, so a burst of logins cannot take the
+ * servlet threads that proxy tariff traffic. The request thread only waits
+ * for the result, the CPU work is limited to `threads` hashes at a time.
+ * When the queue is full, or a hash is not finished within maxWait (time in
+ * the queue plus the hash itself), the call fails fast with
+ * HashingUnavailableException (503).
+ *
+ * The work factor is auth.bcrypt.strength, or calibrated at startup when that
+ * is 0: the highest strength whose measured hash time stays within
+ * targetLatency. Existing hashes carry their own strength and keep matching.
+ */
+@Service
+public class PasswordHasher {
+
+    // Below the Spring Security default is never chosen, whatever the hardware
+    private static final int MIN_STRENGTH = 10;
+    private static final int MAX_STRENGTH = 16;
+
+    private final Logger log = LoggerFactory.getLogger(PasswordHasher.class);
+
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitNanos;
+    private final Timer encodeTimer;
+    private final Timer matchTimer;
+    private final Counter rejected;
+
+    public PasswordHasher(@Value("${auth.bcrypt.strength:0}") int strength,
+            @Value("${auth.bcrypt.target-latency:250ms}") Duration targetLatency,
+            @Value("${auth.bcrypt.threads:0}") int threads,
+            @Value("${auth.bcrypt.queue-capacity:64}") int queueCapacity,
+            @Value("${auth.bcrypt.max-wait:2s}") Duration maxWait,
+            MeterRegistry meterRegistry) {
+        int workFactor = strength > 0 ? strength : calibrate(targetLatency);
+        this.encoder = new BCryptPasswordEncoder(workFactor);
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                (runnable) -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.maxWaitNanos = maxWait.toNanos();
+
+        this.encodeTimer = Timer.builder("auth.password.hash").tag("operation", "encode").register(meterRegistry);
+        this.matchTimer = Timer.builder("auth.password.hash").tag("operation", "match").register(meterRegistry);
+        this.rejected = Counter.builder("auth.password.rejected").register(meterRegistry);
+        Gauge.builder("auth.password.queue", executor, (pool) -> pool.getQueue().size()).register(meterRegistry);
+        Gauge.builder("auth.password.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        Gauge.builder("auth.password.strength", () -> workFactor).register(meterRegistry);
+        log.info("BCrypt strength {} on {} threads, queue {}", workFactor, poolSize, queueCapacity);
+    }
+
+    public String encode(String rawPassword) {
+        return submit(() -> encodeTimer.record(() -> encoder.encode(rawPassword)));
+    }
+
+    public boolean matches(String rawPassword, String passwordHash) {
+        return submit(() -> matchTimer.record(() -> encoder.matches(rawPassword, passwordHash)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T submit(Callable<T> hashing) {
+        Future<T> result;
+        try {
+            result = executor.submit(hashing);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new HashingUnavailableException("Password hashing is saturated");
+        }
+        try {
+            return result.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            rejected.increment();
+            throw new HashingUnavailableException("Password hashing timed out");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.cancel(true);
+            throw new HashingUnavailableException("Interrupted while hashing");
+        }
+    }
+
+    /*
+     * Each strength step doubles the work, so one timing at MIN_STRENGTH (best of
+     * three, after a warm-up) predicts the others
+     */
+    private int calibrate(Duration targetLatency) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(MIN_STRENGTH);
+        probe.encode("calibration");
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            probe.encode("calibration");
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        int strength = MIN_STRENGTH;
+        long estimate = best;
+        while (strength < MAX_STRENGTH && estimate * 2 <= targetLatency.toNanos()) {
+            strength++;
+            estimate *= 2;
+        }
+        log.info("BCrypt calibrated to strength {} ({} ms at strength {}, target {} ms)", strength,
+                TimeUnit.NANOSECONDS.toMillis(best), MIN_STRENGTH, targetLatency.toMillis());
+        return strength;
+    }
+}
@@ -0,0 +1,86 @@
+package com.user.security.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.user.security.enums.Role;
+
+/*
+ * Tokens whose signature and claims were already verified, keyed by a SHA-256
+ * of the token so the tokens themselves are not kept around.
+ *
+ * An entry lives until the token expires or maxTtl has passed, whichever is
+ * first. Reads are lock free. When the cache is full, a put first drops the
+ * expired entries and then, if that was not enough, arbitrary ones.
+ */
+public class VerifiedTokenCache {
+
+    public record VerifiedToken(String userId, List<Role> roles, long expiresAtMillis) {
+    }
+
+    private final Map<String, VerifiedToken> tokens = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final long maxTtlMillis;
+
+    public VerifiedTokenCache(int maxEntries, long maxTtlMillis) {
+        this.maxEntries = maxEntries;
+        this.maxTtlMillis = maxTtlMillis;
+    }
+
+    public VerifiedToken get(String tokenHash, long nowMillis) {
+        VerifiedToken token = tokens.get(tokenHash);
+        if (token != null && token.expiresAtMillis() <= nowMillis) {
+            tokens.remove(tokenHash, token);
+            return null;
+        }
+        return token;
+    }
+
+    /*
+     * @Param tokenExpiresAtMillis The exp claim, or Long.MAX_VALUE if there is none
+     */
+    public void put(String tokenHash, String userId, List<Role> roles, long tokenExpiresAtMillis, long nowMillis) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        if (tokens.size() >= maxEntries) {
+            evict(nowMillis);
+        }
+        long expiresAt = Math.min(tokenExpiresAtMillis, nowMillis + maxTtlMillis);
+        tokens.put(tokenHash, new VerifiedToken(userId, List.copyOf(roles), expiresAt));
+    }
+
+    public int size() {
+        return tokens.size();
+    }
+
+    public void clear() {
+        tokens.clear();
+    }
+
+    public static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void evict(long nowMillis) {
+        tokens.values().removeIf((token) -> token.expiresAtMillis() <= nowMillis);
+        // Still full: make room for a tenth of the capacity
+        Iterator<String> keys = tokens.keySet().iterator();
+        int excess = tokens.size() - maxEntries + Math.max(1, maxEntries / 10);
+        while (excess-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+}
@@ -11,22 +11,22 @@ import com.user.generalUser.GeneralUser;
 import com.user.generalUser.GeneralUserRepo;
 import com.user.security.exception.ApplicationAuthenticationException;
 import com.user.security.service.JwtService;
+import com.user.security.service.PasswordHasher;
 import com.user.security.user.AuthUser;
 import com.user.security.enums.Role;
 
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 @Service
 public class AuthUserServiceImpl implements AuthUserService {
 
     private final GeneralUserRepo generalUserRepo;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtService jwtService;
     
-    public AuthUserServiceImpl(GeneralUserRepo generalUserRepo, PasswordEncoder passwordEncoder, JwtService jwtService) {
+    public AuthUserServiceImpl(GeneralUserRepo generalUserRepo, PasswordHasher passwordHasher, JwtService jwtService) {
         this.generalUserRepo = generalUserRepo;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
         this.jwtService = jwtService;
     }
     
@@ -37,7 +37,7 @@ public class AuthUserServiceImpl implements AuthUserService {
             throw new IllegalArgumentException("User with that username already exists");
         }
         
-        String passwordHash = passwordEncoder.encode(createUserDTO.password());
+        String passwordHash = passwordHasher.encode(createUserDTO.password());
         
         GeneralUser creation = new GeneralUser(createUserDTO.username(), passwordHash, new HashMap<>(), new ArrayList<>(), new ArrayList<>());
         creation.getRole().add(Role.valueOf(createUserDTO.role().toUpperCase()));
@@ -57,7 +57,7 @@ public class AuthUserServiceImpl implements AuthUserService {
         GeneralUser user = generalUserRepo.findByUsername(loginDTO.username())
                                           .orElseThrow(() -> new IllegalArgumentException("User not found"));
         
-        if (!passwordEncoder.matches(loginDTO.password(), user.getHashedPassword())) {
+        if (!passwordHasher.matches(loginDTO.password(), user.getHashedPassword())) {
             // System.out.println("Wrong password");
             throw new ApplicationAuthenticationException("Incorrect password");
         }
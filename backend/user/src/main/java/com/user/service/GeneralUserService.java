@@ -1,16 +1,19 @@
 package com.user.service;
 
 import java.util.List;
-import java.util.Map;
+
+import com.user.dto.HistoryEntryDTO;
 
 public interface GeneralUserService {
 
-    public Map<Integer, Integer> addHistory(String username, Integer tariffId);
+    // Counted in memory and written to the history in the background
+    public void addHistory(String username, Integer tariffId);
 
-    public Map<Integer, Integer> retrieveHistory(String username, Integer tariffId);
+    // Most viewed tariffs first, one page at a time
+    public List<HistoryEntryDTO> retrieveHistory(String username, int page, int size);
 
     public List<Integer> addPinnedTariff(String username, Integer tariffId);
 
     public List<Integer> removePinnedTariff(String username, Integer tariffId);
 
-}
\ No newline at end of file
+}
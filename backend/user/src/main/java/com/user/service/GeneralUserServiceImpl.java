@@ -1,49 +1,183 @@
 package com.user.service;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.user.dto.HistoryEntryDTO;
 import com.user.generalUser.GeneralUser;
 import com.user.generalUser.GeneralUserRepo;
-
+import com.user.generalUser.HistoryBuffer;
+import com.user.generalUser.HistoryBuffer.HistoryKey;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Tariff view history is write-behind: addHistory only counts the view in the
+ * HistoryBuffer, and flushHistory adds the buffered counts to user_history
+ * with one batched upsert every flush interval. A read therefore does not see
+ * the views of the last few seconds.
+ */
 @Service
 public class GeneralUserServiceImpl implements GeneralUserService {
 
-    private final GeneralUserRepo generalUserRepo;
+    private static final String UPSERT_HISTORY_POSTGRES = "INSERT INTO user_history (user_id, history_key, history_value)"
+            + " VALUES (?, ?, ?) ON CONFLICT (user_id, history_key)"
+            + " DO UPDATE SET history_value = user_history.history_value + EXCLUDED.history_value";
+    private static final String UPDATE_HISTORY = "UPDATE user_history SET history_value = history_value + ?"
+            + " WHERE user_id = ? AND history_key = ?";
+    private static final String INSERT_HISTORY = "INSERT INTO user_history (user_id, history_key, history_value)"
+            + " VALUES (?, ?, ?)";
+    private static final String TOP_HISTORY = "SELECT history_key, history_value FROM user_history"
+            + " WHERE user_id = ? ORDER BY history_value DESC, history_key LIMIT ? OFFSET ?";
+    private static final int MAX_CACHED_USER_IDS = 10_000;
+
+    private final Logger log = LoggerFactory.getLogger(GeneralUserServiceImpl.class);
 
-    public GeneralUserServiceImpl(GeneralUserRepo generalUserRepo) {
+    private final GeneralUserRepo generalUserRepo;
+    private final HistoryBuffer historyBuffer;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxPageSize;
+    // Usernames never change, so a view does not need a query to find the user
+    private final Map<String, Integer> userIds = new ConcurrentHashMap<>();
+    private final Counter views;
+    private final Counter flushedRows;
+    private final Timer flushes;
+    private volatile Boolean postgres;
+
+    public GeneralUserServiceImpl(GeneralUserRepo generalUserRepo, HistoryBuffer historyBuffer,
+            JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+            @Value("${user.history.max-page-size:100}") int maxPageSize) {
         this.generalUserRepo = generalUserRepo;
+        this.historyBuffer = historyBuffer;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxPageSize = maxPageSize;
+        this.views = Counter.builder("user.history.views").register(meterRegistry);
+        this.flushedRows = Counter.builder("user.history.flushed.rows").register(meterRegistry);
+        this.flushes = Timer.builder("user.history.flush").register(meterRegistry);
+        Gauge.builder("user.history.pending", historyBuffer, HistoryBuffer::pendingKeys).register(meterRegistry);
     }
 
-    @Transactional
-    public Map<Integer, Integer> addHistory(String username, Integer tariffId) {
-        GeneralUser generalUser = generalUserRepo.findByUsername(username)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+    public void addHistory(String username, Integer tariffId) {
+        if (tariffId == null) {
+            throw new IllegalArgumentException("Tariff id is required");
+        }
+        historyBuffer.record(userId(username), tariffId);
+        views.increment();
+    }
 
-        Map<Integer, Integer> history = generalUser.getHistory();
+    public List<HistoryEntryDTO> retrieveHistory(String username, int page, int size) {
+        if (page < 0 || size < 1) {
+            throw new IllegalArgumentException("Page must be at least 0 and size at least 1");
+        }
+        int limit = Math.min(size, maxPageSize);
+        return jdbcTemplate.query(TOP_HISTORY,
+                (row, rowNumber) -> new HistoryEntryDTO(row.getInt("history_key"), row.getInt("history_value")),
+                userId(username), limit, (long) page * limit);
+    }
 
-        if (history == null) {
-            history = new HashMap<>();
+    @Scheduled(fixedDelayString = "${user.history.flush-interval-ms:5000}")
+    public void flushHistory() {
+        Map<HistoryKey, Long> pending = historyBuffer.drain();
+        if (pending.isEmpty()) {
+            return;
         }
+        long start = System.nanoTime();
+        List<Object[]> rows = new ArrayList<>(pending.size());
+        pending.forEach((key, count) -> rows.add(new Object[] { key.userId(), key.tariffId(), count }));
+        try {
+            transactionTemplate.executeWithoutResult((status) -> write(rows));
+            flushedRows.increment(rows.size());
+        } catch (DataIntegrityViolationException e) {
+            // Typically a user deleted since its views were counted: write row by row and drop the bad ones
+            log.warn("History flush of {} entries rejected, retrying one by one: {}", rows.size(), e.getMessage());
+            for (Object[] row : rows) {
+                try {
+                    transactionTemplate.executeWithoutResult((status) -> write(List.<Object[]>of(row)));
+                    flushedRows.increment();
+                } catch (DataIntegrityViolationException rowFailure) {
+                    log.info("Dropping {} views of tariff {} by user {}", row[2], row[1], row[0]);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Database unavailable: put the counts back, the next flush retries them
+            log.warn("History flush of {} entries failed: {}", rows.size(), e.getMessage());
+            pending.forEach(historyBuffer::add);
+        } finally {
+            flushes.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
 
-        history.put(tariffId, history.getOrDefault(tariffId, 0) + 1);
+    // Views still buffered at shutdown are written before the database goes away
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushHistory();
+    }
 
-        generalUser.setHistory(history);
-        generalUserRepo.save(generalUser);
+    private void write(List<Object[]> rows) {
+        if (isPostgres()) {
+            jdbcTemplate.batchUpdate(UPSERT_HISTORY_POSTGRES, rows);
+        } else {
+            updateThenInsert(rows);
+        }
+    }
+
+    // Without ON CONFLICT (H2 in the tests): add to the existing rows, insert the rest
+    private void updateThenInsert(List<Object[]> rows) {
+        List<Object[]> updates = rows.stream().map((row) -> new Object[] { row[2], row[0], row[1] }).toList();
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_HISTORY, updates);
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (updated[i] == 0) {
+                inserts.add(rows.get(i));
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_HISTORY, inserts);
+        }
+    }
 
-        return history;
+    private int userId(String username) {
+        Integer userId = userIds.get(username);
+        if (userId == null) {
+            userId = generalUserRepo.findIdByUsername(username)
+                    .orElseThrow(() -> new IllegalArgumentException("User not found"));
+            if (userIds.size() >= MAX_CACHED_USER_IDS) {
+                userIds.clear();
+            }
+            userIds.put(username, userId);
+        }
+        return userId;
     }
 
-    @Transactional
-    public Map<Integer, Integer> retrieveHistory(String username, Integer tariffId) {
-        GeneralUser generalUser = generalUserRepo.findByUsername(username)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-        
-        return generalUser.getHistory();
+    private boolean isPostgres() {
+        Boolean known = postgres;
+        if (known == null) {
+            known = jdbcTemplate.execute((ConnectionCallback<Boolean>) (connection) ->
+                    "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName()));
+            postgres = known;
+        }
+        return known;
     }
 
     @Transactional
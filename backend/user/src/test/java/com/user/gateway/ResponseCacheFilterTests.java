@@ -0,0 +1,207 @@
+package com.user.gateway;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.user.config.ResponseCacheProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletResponse;
+
+/*
+ * Drives ResponseCacheFilter with mock requests and a stub chain standing in
+ * for the proxy to tariffCalc. The stub answers with the number of calls it
+ * has seen, so a HIT can be told apart from a fresh upstream answer.
+ */
+class ResponseCacheFilterTests {
+
+    private static final String ROUTE = "/tariff/current";
+
+    private final ResponseCacheProperties properties = new ResponseCacheProperties();
+    private final Upstream upstream = new Upstream();
+
+    @Test
+    void reorderedJsonSharesAnEntry() throws Exception {
+        ResponseCacheFilter filter = filter();
+
+        MockHttpServletResponse first = post(filter, ROUTE, "{\"a\":1,\"b\":[1,2]}");
+        MockHttpServletResponse second = post(filter, ROUTE, "{ \"b\": [1, 2],\n \"a\": 1 }");
+
+        assertEquals("MISS", first.getHeader("X-Cache"));
+        assertEquals("HIT", second.getHeader("X-Cache"));
+        assertEquals(first.getContentAsString(), second.getContentAsString());
+        assertEquals(1, upstream.calls);
+        // The body the filter read is still passed on to the proxy
+        assertEquals("{\"a\":1,\"b\":[1,2]}", upstream.lastBody);
+    }
+
+    @Test
+    void differentBodiesDoNotShareAnEntry() throws Exception {
+        ResponseCacheFilter filter = filter();
+
+        post(filter, ROUTE, "{\"a\":1}");
+        MockHttpServletResponse other = post(filter, ROUTE, "{\"a\":2}");
+
+        assertEquals("MISS", other.getHeader("X-Cache"));
+        assertEquals(2, upstream.calls);
+    }
+
+    @Test
+    void noStoreRequestBypassesTheCache() throws Exception {
+        ResponseCacheFilter filter = filter();
+
+        MockHttpServletResponse bypassed = post(filter, ROUTE, "{\"a\":1}", HttpHeaders.CACHE_CONTROL, "no-store");
+        MockHttpServletResponse next = post(filter, ROUTE, "{\"a\":1}");
+
+        assertNull(bypassed.getHeader("X-Cache"));
+        assertEquals("{\"a\":1}", upstream.lastBody);
+        // Nothing was stored by the bypassed request
+        assertEquals("MISS", next.getHeader("X-Cache"));
+        assertEquals(2, upstream.calls);
+    }
+
+    @Test
+    void noStoreResponseIsNotCached() throws Exception {
+        ResponseCacheFilter filter = filter();
+        upstream.cacheControl = "no-store";
+
+        post(filter, ROUTE, "{\"a\":1}");
+        MockHttpServletResponse second = post(filter, ROUTE, "{\"a\":1}");
+
+        assertEquals("MISS", second.getHeader("X-Cache"));
+        assertEquals(2, upstream.calls);
+    }
+
+    @Test
+    void upstreamMaxAgeCapsTheRouteTtl() throws Exception {
+        ResponseCacheFilter filter = filter();
+        upstream.cacheControl = "public, max-age=1";
+
+        post(filter, ROUTE, "{\"a\":1}");
+        assertEquals("HIT", post(filter, ROUTE, "{\"a\":1}").getHeader("X-Cache"));
+
+        // The route allows ten minutes, the upstream one second
+        Thread.sleep(1100);
+        assertEquals("MISS", post(filter, ROUTE, "{\"a\":1}").getHeader("X-Cache"));
+        assertEquals(2, upstream.calls);
+    }
+
+    @Test
+    void responseFromOlderDataVersionIsNotStored() throws Exception {
+        ResponseCacheFilter filter = filter();
+        upstream.dataVersion = "5";
+        post(filter, ROUTE, "{\"a\":1}");
+
+        upstream.dataVersion = "4";
+        post(filter, ROUTE, "{\"a\":2}");
+        MockHttpServletResponse stale = post(filter, ROUTE, "{\"a\":2}");
+
+        assertEquals("MISS", stale.getHeader("X-Cache"));
+        // The older response does not clear what was stored for the newer version
+        assertEquals("HIT", post(filter, ROUTE, "{\"a\":1}").getHeader("X-Cache"));
+        assertEquals(3, upstream.calls);
+    }
+
+    @Test
+    void newerDataVersionClearsTheCache() throws Exception {
+        ResponseCacheFilter filter = filter();
+        upstream.dataVersion = "5";
+        post(filter, ROUTE, "{\"a\":1}");
+
+        upstream.dataVersion = "6";
+        post(filter, ROUTE, "{\"a\":2}");
+
+        assertEquals("MISS", post(filter, ROUTE, "{\"a\":1}").getHeader("X-Cache"));
+        assertEquals("HIT", post(filter, ROUTE, "{\"a\":2}").getHeader("X-Cache"));
+    }
+
+    @Test
+    void successfulAdminWriteClearsTheCache() throws Exception {
+        ResponseCacheFilter filter = filter();
+        post(filter, ROUTE, "{\"a\":1}");
+
+        upstream.status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        post(filter, "/tariff/admin/import", "{}");
+        upstream.status = HttpServletResponse.SC_OK;
+        assertEquals("HIT", post(filter, ROUTE, "{\"a\":1}").getHeader("X-Cache"));
+
+        upstream.status = HttpServletResponse.SC_ACCEPTED;
+        post(filter, "/tariff/admin/import", "{}");
+        upstream.status = HttpServletResponse.SC_OK;
+        assertEquals("MISS", post(filter, ROUTE, "{\"a\":1}").getHeader("X-Cache"));
+    }
+
+    @Test
+    void oversizedBodyIsPassedOnWhole() throws Exception {
+        properties.setMaxBodyBytes(16);
+        ResponseCacheFilter filter = filter();
+        String body = "{\"item\":\"" + "x".repeat(100) + "\"}";
+
+        MockHttpServletResponse response = post(filter, ROUTE, body);
+        post(filter, ROUTE, body);
+
+        assertNull(response.getHeader("X-Cache"));
+        assertEquals(body, upstream.lastBody);
+        assertEquals(2, upstream.calls);
+    }
+
+    private ResponseCacheFilter filter() {
+        properties.setRoutes(Map.of(ROUTE, Duration.ofMinutes(10)));
+        return new ResponseCacheFilter(properties, new SimpleMeterRegistry());
+    }
+
+    private MockHttpServletResponse post(ResponseCacheFilter filter, String path, String body, String... headers)
+            throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < headers.length; i += 2) {
+            request.addHeader(headers[i], headers[i + 1]);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, upstream);
+        return response;
+    }
+
+    /*
+     * Stand-in for the proxy: reads the whole request body and answers with the
+     * configured status and headers.
+     */
+    private static final class Upstream implements FilterChain {
+        private int calls;
+        private String lastBody;
+        private int status = HttpServletResponse.SC_OK;
+        private String cacheControl;
+        private String dataVersion;
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+            calls++;
+            lastBody = new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            HttpServletResponse http = (HttpServletResponse) response;
+            http.setStatus(status);
+            if (cacheControl != null) {
+                http.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+            }
+            if (dataVersion != null) {
+                http.setHeader("X-Tariff-Data-Version", dataVersion);
+            }
+            http.setContentType("application/json");
+            http.getOutputStream().write(("{\"call\":" + calls + "}").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}